@@ -10,7 +10,10 @@ import java.nio.ByteBuffer;
 import java.nio.channels.*;
 import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
@@ -23,6 +26,10 @@ public class APIServer {
     private Selector selector;
     private ServerSocketChannel tcpChannel;
     private boolean isRunning = true;
+    // Selector Thread 에서만 사용하는 전달 중인 Http 응답
+    private final Set<HttpRelay> relays = new HashSet<>();
+    private static final int RELAY_BUFFER_SIZE = Integer.getInteger("apiServer.relayBufferSize", 16 * 1024);
+    private static final long CLIENT_WRITE_TIMEOUT_MILLIS = Long.getLong("apiServer.clientWriteTimeoutMs", 30000L);
 
     public APIServer(String applicationName, int serverPort, int storagePort) {
         this.applicationName = "App " + applicationName;
@@ -50,6 +57,7 @@ public class APIServer {
         try {
             while (isRunning) {
                 int readyChannels = selector.select(1000);
+                closeTimedOutRelays();
                 if (readyChannels == 0) {
                     continue;
                 }
@@ -57,9 +65,26 @@ public class APIServer {
                 while (keyIterator.hasNext()) {
                     SelectionKey key = keyIterator.next();
                     keyIterator.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
                     if (key.isAcceptable()) {
                         handleConnection();
                     }
+                    // 응답을 전달 중인 Connection 은 Local Storage 는 읽기, Client 는 쓰기만 진행
+                    if (key.attachment() instanceof HttpRelay) {
+                        HttpRelay relay = (HttpRelay) key.attachment();
+                        try {
+                            if (key.channel() == relay.storageChannel) {
+                                relayFromStorage(relay);
+                            } else {
+                                relayToClient(relay);
+                            }
+                        } catch (IOException e) {
+                            failRelay(relay, e);
+                        }
+                        continue;
+                    }
                     if (key.isReadable()) {
                         handleRequest((SocketChannel) key.channel());
                     }
@@ -152,7 +177,28 @@ public class APIServer {
                 "["+applicationName+"] " + "[ " +requestDto.method() + " ] " +
                 "[ " +requestDto.url() + " ] " +
                 "[ Request Body : " +requestDto.body() + " ] ");
-        String response = getLocalStorageResponse(request);
+        SocketChannel storageChannel = connectLocalStorage(request);
+        ByteBuffer relayBuffer = ByteBuffer.allocate(RELAY_BUFFER_SIZE);
+        int bytesRead;
+        try {
+            bytesRead = storageChannel.read(relayBuffer);
+            relayBuffer.flip();
+            // Local Storage 가 Http 응답을 보내면 모아두지 않고 받은 만큼 바로 Client 에게 전달
+            // Content-Length 나 304 로 끝을 알 수 있으면 Client Connection 을 계속 사용하고, Chunk 응답은 끝나면 닫음
+            if (isHttpResponse(relayBuffer)) {
+                String statusLine = getStatusLine(relayBuffer);
+                long responseLength = readHttpResponseLength(storageChannel, relayBuffer);
+                startRelay(new HttpRelay(requestDto, statusLine, storageChannel, clientChannel, relayBuffer, responseLength));
+                return;
+            }
+        } catch (IOException e) {
+            LoggingUtil.logAsync(Level.WARNING, "Error relaying http response: " + e.getMessage());
+            storageChannel.close();
+            clientChannel.close();
+            return;
+        }
+        storageChannel.close();
+        String response = new String(relayBuffer.array(), 0, bytesRead);
         Timestamp responseTimeStamp = new Timestamp(System.currentTimeMillis());
         System.out.println("["+responseTimeStamp+"] " +
                 "["+applicationName+"] " + "[ " +requestDto.method() + " ] " +
@@ -210,21 +256,169 @@ public class APIServer {
                 "\r\n" + response;
         return httpResponse.getBytes(StandardCharsets.UTF_8);
     }
-    private String getLocalStorageResponse(String clientRequest) throws IOException{
+    private SocketChannel connectLocalStorage(String clientRequest) throws IOException{
 
         SocketChannel socketChannel = SocketChannel.open();
         socketChannel.connect(new InetSocketAddress("127.0.0.1",storagePort));
         socketChannel.configureBlocking(true);
-        ByteBuffer responseBuffer = ByteBuffer.wrap(clientRequest.getBytes());
-        socketChannel.write(responseBuffer);
+        ByteBuffer requestBuffer = ByteBuffer.wrap(clientRequest.getBytes());
+        while (requestBuffer.hasRemaining()) {
+            socketChannel.write(requestBuffer);
+        }
+        return socketChannel;
+    }
+    private boolean isHttpResponse(ByteBuffer buffer) {
+        byte[] prefix = "HTTP/".getBytes(StandardCharsets.US_ASCII);
+        if (buffer.remaining() < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(buffer.position() + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    // Header 를 모두 읽은 후 Header 와 Body 를 합친 길이, Chunk 응답처럼 Connection 이 닫혀야 끝나면 -1
+    private long readHttpResponseLength(SocketChannel storageChannel, ByteBuffer relayBuffer) throws IOException {
+        int headerEndIndex;
+        while ((headerEndIndex = indexOfHeaderEnd(relayBuffer)) == -1) {
+            if (relayBuffer.limit() == relayBuffer.capacity()) {
+                return -1;
+            }
+            int position = relayBuffer.position();
+            relayBuffer.position(relayBuffer.limit()).limit(relayBuffer.capacity());
+            int bytesRead = storageChannel.read(relayBuffer);
+            relayBuffer.flip().position(position);
+            if (bytesRead == -1) {
+                return -1;
+            }
+        }
+        String[] headerLines = new String(relayBuffer.array(), 0, headerEndIndex, StandardCharsets.ISO_8859_1).split("\r\n");
+        if (headerLines[0].split(" ")[1].equals("304")) {
+            return headerEndIndex + 4;
+        }
+        for (String line : headerLines) {
+            if (line.regionMatches(true, 0, "Content-Length:", 0, "Content-Length:".length())) {
+                return headerEndIndex + 4 + Long.parseLong(line.substring("Content-Length:".length()).trim());
+            }
+        }
+        return -1;
+    }
+    private int indexOfHeaderEnd(ByteBuffer buffer) {
+        byte[] array = buffer.array();
+        for (int i = 0; i + 3 < buffer.limit(); i++) {
+            if (array[i] == '\r' && array[i + 1] == '\n' && array[i + 2] == '\r' && array[i + 3] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+    private String getStatusLine(ByteBuffer buffer) {
+        String response = new String(buffer.array(), 0, Math.min(buffer.limit(), 64), StandardCharsets.ISO_8859_1);
+        int lineEndIndex = response.indexOf("\r\n");
+        return lineEndIndex == -1 ? response : response.substring(0, lineEndIndex);
+    }
+    // Header 를 읽은 후의 전달은 Selector 에 맡겨서 느린 Client 가 있어도 다른 Client 의 요청을 계속 처리
+    private void startRelay(HttpRelay relay) throws IOException {
+        relay.storageChannel.configureBlocking(false);
+        relay.storageKey = relay.storageChannel.register(selector, 0, relay);
+        relay.clientKey = relay.clientChannel.keyFor(selector);
+        relay.clientKey.attach(relay);
+        relays.add(relay);
+        try {
+            relayToClient(relay);
+        } catch (IOException e) {
+            failRelay(relay, e);
+        }
+    }
+    // Buffer 에 남은 만큼 Client 에 쓰고, 다 쓰면 Local Storage 에서 이어서 읽음
+    private void relayToClient(HttpRelay relay) throws IOException {
+        int bytesWritten = relay.clientChannel.write(relay.relayBuffer);
+        if (bytesWritten > 0) {
+            relay.relayedBytes += bytesWritten;
+            relay.lastProgressMillis = System.currentTimeMillis();
+        }
+        if (relay.relayBuffer.hasRemaining()) {
+            relay.clientKey.interestOps(SelectionKey.OP_WRITE);
+            relay.storageKey.interestOps(0);
+            return;
+        }
+        if (relay.relayedBytes == relay.responseLength) {
+            finishRelay(relay);
+            return;
+        }
+        relay.clientKey.interestOps(0);
+        relay.storageKey.interestOps(SelectionKey.OP_READ);
+    }
+    // responseLength 만큼 보내거나, -1 이면 Local Storage 가 Connection 을 닫을 때까지 같은 Buffer 로 읽고 쓰기를 반복
+    private void relayFromStorage(HttpRelay relay) throws IOException {
+        relay.relayBuffer.clear();
+        int bytesRead = relay.storageChannel.read(relay.relayBuffer);
+        relay.relayBuffer.flip();
+        if (bytesRead == -1) {
+            finishRelay(relay);
+            return;
+        }
+        relayToClient(relay);
+    }
+    // 길이를 알 수 없거나 중간에 끊긴 응답은 Client Connection 을 닫아서 끝을 알림
+    private void finishRelay(HttpRelay relay) throws IOException {
+        relays.remove(relay);
+        relay.storageChannel.close();
+        Timestamp responseTimeStamp = new Timestamp(System.currentTimeMillis());
+        System.out.println("["+responseTimeStamp+"] " +
+                "["+applicationName+"] " + "[ " +relay.requestDto.method() + " ] " +
+                "[ " +relay.requestDto.url() + " ] " +
+                "[ Response : " + relay.statusLine + ", " + relay.relayedBytes + " bytes ] ");
+        if (relay.relayedBytes != relay.responseLength) {
+            relay.clientChannel.close();
+            return;
+        }
+        relay.clientKey.attach(null);
+        relay.clientKey.interestOps(SelectionKey.OP_READ);
+    }
+    private void failRelay(HttpRelay relay, IOException e) {
+        LoggingUtil.logAsync(Level.WARNING, "Error relaying http response: " + e.getMessage());
+        relays.remove(relay);
+        try {
+            relay.storageChannel.close();
+            relay.clientChannel.close();
+        } catch (IOException ignored) {
+        }
+    }
+    // Client 가 받지 않아서 쓰기를 기다리는 시간이 너무 길어지면 전달을 중단
+    private void closeTimedOutRelays() {
+        long now = System.currentTimeMillis();
+        for (HttpRelay relay : List.copyOf(relays)) {
+            if (relay.relayBuffer.hasRemaining() && now - relay.lastProgressMillis > CLIENT_WRITE_TIMEOUT_MILLIS) {
+                failRelay(relay, new IOException("Client write timed out"));
+            }
+        }
+    }
 
-        ByteBuffer buffer = ByteBuffer.allocate(1024);
-        int bytesRead = socketChannel.read(buffer);
-        buffer.flip();
-        String response = new String(buffer.array(), 0, bytesRead);
-        buffer.clear();
-        socketChannel.close();
-        return response;
+    // Local Storage 에서 받은 응답을 Client 에게 전달하는 동안의 상태
+    private static class HttpRelay {
+        private final RequestDto requestDto;
+        private final String statusLine;
+        private final SocketChannel storageChannel;
+        private final SocketChannel clientChannel;
+        private final ByteBuffer relayBuffer;
+        private final long responseLength;
+        private SelectionKey storageKey;
+        private SelectionKey clientKey;
+        private long relayedBytes = 0;
+        private long lastProgressMillis = System.currentTimeMillis();
+
+        private HttpRelay(RequestDto requestDto, String statusLine, SocketChannel storageChannel,
+                          SocketChannel clientChannel, ByteBuffer relayBuffer, long responseLength) {
+            this.requestDto = requestDto;
+            this.statusLine = statusLine;
+            this.storageChannel = storageChannel;
+            this.clientChannel = clientChannel;
+            this.relayBuffer = relayBuffer;
+            this.responseLength = responseLength;
+        }
     }
 
     public void stopApiServer() {
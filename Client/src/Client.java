@@ -2,6 +2,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.net.InetSocketAddress;
@@ -110,8 +111,13 @@ public class Client {
     private static void printRestApi(){
         System.out.println("=== Rest Api ===");
         System.out.println("[GET] : [ /notes ] ");
+        System.out.println("[GET] : [ /notes?limit={limit}&cursor={nextCursor} ] ");
+        System.out.println("[GET] : [ /notes?titlePrefix={prefix} or /notes?titleFrom={from}&titleTo={to} ] ");
         System.out.println("[GET] : [ /notes/{id} ] ");
+        System.out.println("[GET] : [ /notes/search?q={query}&k={k} ] ");
+        System.out.println("[GET] : [ /notes/filter?titleContains={text}&bodyContains={text}&minBodyLength={n}&maxBodyLength={n}&limit={limit} ] ");
         System.out.println("[POST]: [ /notes ] [ RequestBody -> title and body ]");
+        System.out.println("[POST]: [ /notes/bulk ] [ RequestBody -> [{\"op\":\"create|update|patch|delete\", id, title, body}, ...] ]");
         System.out.println("[PUT]: [ /notes/{id} [ RequestBody -> title or body ] ");
         System.out.println("[PATCH]: [ /notes/{id} [ RequestBody -> title or body ] ");
         System.out.println("[DELETE]: [ /notes/{id} ");
@@ -127,13 +133,18 @@ public class Client {
             System.out.println("Invalid path for method: " + method);
             return false;
         }
-        if (!isValidBody(method,body)) {
+        if (!isValidBody(method,path,body)) {
             System.out.println("Invalid body for method: " + method + " on path: " + path);
             return false;
         }
         return true;
     }
 
+    private static boolean isValidConsistencyLevel(String consistencyLevel) {
+        return consistencyLevel.equals("ALL") || consistencyLevel.equals("QUORUM") ||
+                consistencyLevel.equals("ONE") || consistencyLevel.equals("ASYNC");
+    }
+
     private static boolean isValidMethod(String method) {
         return method.equals("GET") || method.equals("POST") || method.equals("PUT") ||
                 method.equals("PATCH") || method.equals("DELETE");
@@ -141,14 +152,31 @@ public class Client {
 
     private static boolean isValidPath(String method, String path) {
         return switch (method) {
-            case "GET" -> path.matches("^/notes(/\\d+)?$");
-            case "POST" -> path.equals("/notes");
+            case "GET" -> path.matches("^/notes(/\\d+)?$") || isValidPageQuery(path)
+                    || path.matches("^/notes/search\\?q=[^&]+(&k=[1-9]\\d{0,8})?$")
+                    || path.matches("^/notes/filter\\?(titleContains|bodyContains|minBodyLength|maxBodyLength|limit)=[^&]+(&(titleContains|bodyContains|minBodyLength|maxBodyLength|limit)=[^&]+)*$");
+            case "POST" -> path.equals("/notes") || path.equals("/notes/bulk");
             case "PUT", "PATCH", "DELETE" -> path.matches("^/notes/\\d+$");
             default -> false;
         };
     }
 
-    private static boolean isValidBody(String method, String body) {
+    // 이전 응답의 nextCursor 를 cursor 로 전달, title 에 공백이나 특수문자가 있으면 URL Encoding 해서 입력
+    private static boolean isValidPageQuery(String path) {
+        if (!path.startsWith("/notes?")) {
+            return false;
+        }
+        for (String parameter : path.substring("/notes?".length()).split("&")) {
+            boolean isValid = parameter.matches("limit=[1-9]\\d{0,8}") || parameter.matches("cursor=[A-Za-z0-9_-]+")
+                    || parameter.matches("(titlePrefix|titleFrom|titleTo)=[^&]+");
+            if (!isValid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValidBody(String method, String path, String body) {
 
         if (method.equals("GET") || method.equals("DELETE")) {
             return body == null || body.trim().isEmpty();
@@ -158,6 +186,15 @@ public class Client {
                 System.out.println("Body is required for " + method + " requests.");
                 return false;
             }
+            // Bulk 의 각 Operation 은 Server 에서 검사
+            if (path.equals("/notes/bulk")) {
+                try {
+                    return !JsonParser.parseString(body).getAsJsonArray().isEmpty();
+                } catch (Exception e) {
+                    System.out.println("Invalid JSON array body.");
+                    return false;
+                }
+            }
             JsonObject jsonBody;
             try {
                 jsonBody = JsonParser.parseString(body).getAsJsonObject();
@@ -184,39 +221,77 @@ public class Client {
         buffer.clear();
         System.out.println("Server Response - " + response);
     }
+    // Bulk 결과처럼 1024 byte 보다 긴 응답은 Json 이 끝날 때까지 이어서 읽음
     private static void sendTcpMessage(String body) throws IOException {
-        ByteBuffer responseBuffer = ByteBuffer.wrap(body.getBytes());
-        clientTcpChannel.write(responseBuffer);
+        ByteBuffer responseBuffer = ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8));
+        while (responseBuffer.hasRemaining()) {
+            clientTcpChannel.write(responseBuffer);
+        }
+        ByteArrayOutputStream responseBytes = new ByteArrayOutputStream();
         ByteBuffer buffer = ByteBuffer.allocate(1024);
-        int bytesRead = clientTcpChannel.read(buffer);
-        buffer.flip();
-        String response = new String(buffer.array(), 0, bytesRead);
-        buffer.clear();
-        System.out.println("Server Response - " + response);
+        while (!isJsonComplete(responseBytes.toByteArray())) {
+            int bytesRead = clientTcpChannel.read(buffer);
+            if (bytesRead == -1) {
+                break;
+            }
+            responseBytes.write(buffer.array(), 0, bytesRead);
+            buffer.clear();
+        }
+        System.out.println("Server Response - " + responseBytes.toString(StandardCharsets.UTF_8));
+    }
+    // 문자열 밖의 괄호 깊이가 0 으로 돌아오면 끝, 객체나 배열로 시작하지 않으면 받은 내용 그대로 출력
+    private static boolean isJsonComplete(byte[] bytes) {
+        int start = 0;
+        while (start < bytes.length && Character.isWhitespace(bytes[start])) {
+            start++;
+        }
+        if (start == bytes.length) {
+            return false;
+        }
+        if (bytes[start] != '{' && bytes[start] != '[') {
+            return true;
+        }
+        int depth = 0;
+        boolean isInString = false;
+        for (int i = start; i < bytes.length; i++) {
+            byte current = bytes[i];
+            if (isInString) {
+                if (current == '\\') {
+                    i++;
+                } else if (current == '"') {
+                    isInString = false;
+                }
+            } else if (current == '"') {
+                isInString = true;
+            } else if (current == '{' || current == '[') {
+                depth++;
+            } else if ((current == '}' || current == ']') && --depth == 0) {
+                return true;
+            }
+        }
+        return false;
     }
-    private static void sendHttpMessage(String method,String path, String body) throws IOException, URISyntaxException, InterruptedException {
+    private static void sendHttpMessage(String method,String path, String body, String consistencyLevel) throws IOException, URISyntaxException, InterruptedException {
         URI uri = new URI("http://localhost:" + httpPort + path);
+        HttpRequest.Builder httpRequestBuilder = HttpRequest.newBuilder()
+                .uri(uri)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+        if (consistencyLevel != null) {
+            httpRequestBuilder.header("X-Consistency-Level", consistencyLevel);
+        }
         HttpRequest httpRequest;
 
         if (method.equals("GET")) {
-            httpRequest = HttpRequest.newBuilder()
-                    .uri(uri)
-                    .header("Content-Type", "application/json")
-                    .header("Accept", "application/json")
+            httpRequest = httpRequestBuilder
                     .GET()
                     .build();
         } else if (method.equals("DELETE")) {
-            httpRequest = HttpRequest.newBuilder()
-                    .uri(uri)
-                    .header("Content-Type", "application/json")
-                    .header("Accept", "application/json")
+            httpRequest = httpRequestBuilder
                     .DELETE()
                     .build();
         } else {
-            httpRequest = HttpRequest.newBuilder()
-                    .uri(uri)
-                    .header("Content-Type", "application/json")
-                    .header("Accept", "application/json")
+            httpRequest = httpRequestBuilder
                     .method(method, HttpRequest.BodyPublishers.ofString(body != null ? body : "", StandardCharsets.UTF_8))
                     .build();
         }
@@ -225,12 +300,17 @@ public class Client {
         System.out.println("Server Response Status - " + response.statusCode());
         System.out.println("Server Response Body - " + response.body());
     }
-    private static void sendMessageToServer(String method,String path,String body){
+    private static void sendMessageToServer(String method,String path,String body,String consistencyLevel){
         try {
             JsonObject jsonObject = new JsonObject();
             jsonObject.addProperty("method",method);
             jsonObject.addProperty("path",path);
-            if (body != null && !body.trim().isEmpty()) {
+            if (consistencyLevel != null) {
+                jsonObject.addProperty("consistency",consistencyLevel);
+            }
+            if (body != null && !body.trim().isEmpty() && path.equals("/notes/bulk")) {
+                jsonObject.add("body", JsonParser.parseString(body).getAsJsonArray());
+            } else if (body != null && !body.trim().isEmpty()) {
                 JsonObject jsonBody = JsonParser.parseString(body).getAsJsonObject();
                 JsonObject bodyObject = new JsonObject();
                 if (jsonBody.has("title")) {
@@ -246,7 +326,7 @@ public class Client {
             if (protocolType.equals("tcp")){
                 sendTcpMessage(jsonObject.toString());
             }else if (protocolType.equals("http")){
-                sendHttpMessage(method,path,body);
+                sendHttpMessage(method,path,body,consistencyLevel);
             }else{
                 sendUdpMessage(jsonObject.toString());
             }
@@ -297,6 +377,17 @@ public class Client {
                     System.out.print("Input the path : ");
                     String path = scanner.nextLine();
                     String body = null;
+                    String consistencyLevel = null;
+                    if (!method.equals("GET")){
+                        System.out.print("Input the consistency level ( ALL / QUORUM / ONE / ASYNC, Enter for default ) : ");
+                        consistencyLevel = scanner.nextLine().trim().toUpperCase();
+                        if (consistencyLevel.isEmpty()) {
+                            consistencyLevel = null;
+                        } else if (!isValidConsistencyLevel(consistencyLevel)) {
+                            System.out.println("Invalid consistency level.");
+                            break;
+                        }
+                    }
                     if (!method.equals("GET") && !method.equals("DELETE")){
                         System.out.println("> Body format - { title : ''. body : '' } ");
                         System.out.print("Input the Request body : ");
@@ -308,7 +399,7 @@ public class Client {
                     }
                     boolean isValid = validateRequest(method, path, body);
                     if (isValid){
-                        sendMessageToServer(method,path,body);
+                        sendMessageToServer(method,path,body,consistencyLevel);
                     }
                     break;
                 case "4":
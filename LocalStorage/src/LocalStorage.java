@@ -2,9 +2,16 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import util.BodyCodec;
+import util.ChunkedResponse;
 import util.Data;
 import util.DataUtil;
+import util.HttpConnection;
+import util.NoteFilter;
+import util.ReplicationBatch;
+import util.ReplicationOperation;
 import util.RequestDto;
+import util.TitleKey;
 
 import java.io.IOException;
 import java.net.*;
@@ -12,24 +19,58 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Timestamp;
 import java.util.*;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static util.HttpManager.*;
 
 public class LocalStorage {
 
-    private Selector selector;
     private final String storageName;
     private final String ip;
     private final int port;
-    private DataUtil dataUtil;
-    private ServerSocketChannel tcpChannel;
-    private DatagramChannel udpChannel;
-    private boolean isRunning = true;
+    private volatile DataUtil dataUtil = new DataUtil(new ArrayList<>());
+    private volatile long replicationEpoch = 0;
+    private volatile long lastAppliedSequence = 0;
+    private boolean isCatchingUp = false;
+    private boolean isCatchUpPending = false;
+    private long lastHeartbeatSequence = 0;
+    private final List<Reactor> reactors = new ArrayList<>();
+    private final List<ServerSocketChannel> tcpChannels = new ArrayList<>();
+    private final List<DatagramChannel> udpChannels = new ArrayList<>();
+    private final AtomicInteger nextReactorIndex = new AtomicInteger(0);
+    private volatile boolean isRunning = true;
+    private static final int REACTOR_THREADS = Integer.getInteger("localStorage.reactors", Runtime.getRuntime().availableProcessors());
+    private static final String REPLICATION_PROTOCOL = System.getProperty("replication.protocol", "binary");
+    private static final long HEARTBEAT_INTERVAL_MILLIS = Long.getLong("replication.heartbeatMs", 3000L);
+    private static final long COMPRESSION_REPORT_INTERVAL_MILLIS = Long.getLong("storage.compression.reportMs", 60000L);
+    // GET /notes?limit=&cursor= 의 기본 Page 크기와 최대 Page 크기
+    private static final int PAGE_DEFAULT_LIMIT = Integer.getInteger("notes.page.defaultLimit", 10);
+    private static final int PAGE_MAX_LIMIT = Integer.getInteger("notes.page.maxLimit", 100);
+    // Page 응답의 최대 byte 수, Tcp Server, Udp Server, Api Server 의 1024 byte Buffer 에 한 번에 들어가도록 함
+    private static final int PAGE_MAX_BYTES = Integer.getInteger("notes.page.maxBytes", 1024);
+    private static final String SEARCH_URI = NOTES_URI + "/search";
+    private static final String FILTER_URI = NOTES_URI + "/filter";
+    private static final int SEARCH_DEFAULT_K = 10;
+    private static final String BULK_URI = NOTES_URI + "/bulk";
+    // POST /notes/bulk 한 번에 보낼 수 있는 최대 Operation 수
+    private static final int BULK_MAX_OPERATIONS = Integer.getInteger("notes.bulk.maxOperations", 1000);
+    // Udp 요청은 Bulk 처럼 길 수 있으므로 Datagram 최대 크기까지 받고, 응답은 Udp Server 와 Client 의 1024 byte Buffer 에 맞춤
+    private static final int UDP_MAX_REQUEST_BYTES = 65507;
+    private static final int UDP_MAX_RESPONSE_BYTES = 1024;
     private static final ExecutorService executor = Executors.newFixedThreadPool(10); // 스레드 풀 생성
+    private final ScheduledExecutorService heartbeatScheduler = Executors.newSingleThreadScheduledExecutor();
 
     public LocalStorage(String storageName,String ip,int port) {
         this.storageName = storageName+" LS";
@@ -37,9 +78,10 @@ public class LocalStorage {
         this.port = port;
         try {
             System.out.println("Local Storage Server started and listening on port "+port);
-            selector = Selector.open();
+            for (int i = 0; i < Math.max(1, REACTOR_THREADS); i++) {
+                reactors.add(new Reactor(i));
+            }
             initialize();
-            start();
         } catch (IOException e) {
             System.err.println("Error initializing Primary Storage: " + e.getMessage());
         }
@@ -47,157 +89,412 @@ public class LocalStorage {
     public void initialize() throws IOException{
 
         try{
+            loadLocalSnapshot();
             String response = initializeDataStorage();
-            JsonArray responseArray = JsonParser.parseString(response).getAsJsonArray();
-            List<Data> initialData = new ArrayList<>();
-            for(JsonElement jsonObject : responseArray){
-                Long id = jsonObject.getAsJsonObject().get("id").getAsLong();
-                String title = jsonObject.getAsJsonObject().get("title").getAsString();
-                String body = jsonObject.getAsJsonObject().get("body").getAsString();
-                initialData.add(new Data(id,title,body));
-            }
-            dataUtil = new DataUtil(initialData);
+            applyReplicationResponse(response);
         } catch (URISyntaxException | InterruptedException e) {
             System.out.println("Initialize Error - " + e.getMessage());
         }
-        tcpChannel = ServerSocketChannel.open();
-        tcpChannel.bind(new InetSocketAddress(ip,port));
-        tcpChannel.configureBlocking(false);
-        tcpChannel.register(selector, SelectionKey.OP_ACCEPT);
+        // SO_REUSEPORT 를 지원하면 Reactor 마다 같은 Port 로 Listener 를 열어서 Kernel 이 Connection 과 Datagram 을 분산
+        // 지원하지 않으면 첫 번째 Reactor 가 Accept 하고 Connection 을 Round Robin 으로 나눠줌
+        boolean isReusePortSupported = isReusePortSupported();
+        int listenerCount = isReusePortSupported ? reactors.size() : 1;
+        for (int i = 0; i < listenerCount; i++) {
+            Reactor reactor = reactors.get(i);
+            ServerSocketChannel tcpChannel = ServerSocketChannel.open();
+            DatagramChannel udpChannel = DatagramChannel.open();
+            if (isReusePortSupported) {
+                tcpChannel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+                udpChannel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            tcpChannel.bind(new InetSocketAddress(ip,port));
+            tcpChannel.configureBlocking(false);
+            tcpChannel.register(reactor.selector, SelectionKey.OP_ACCEPT);
+            tcpChannels.add(tcpChannel);
 
-        udpChannel = DatagramChannel.open();
-        udpChannel.bind(new InetSocketAddress(ip,port));
-        udpChannel.configureBlocking(false);
-        udpChannel.register(selector, SelectionKey.OP_READ);
+            udpChannel.bind(new InetSocketAddress(ip,port));
+            udpChannel.configureBlocking(false);
+            udpChannel.register(reactor.selector, SelectionKey.OP_READ);
+            udpChannels.add(udpChannel);
+        }
+        System.out.println("Local Storage uses " + reactors.size() + " reactors" + (isReusePortSupported ? " with SO_REUSEPORT" : ""));
 
+        heartbeatScheduler.scheduleWithFixedDelay(this::sendHeartbeat,
+                HEARTBEAT_INTERVAL_MILLIS, HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        if (BodyCodec.isEnabled()) {
+            heartbeatScheduler.scheduleWithFixedDelay(this::printCompressionReport,
+                    COMPRESSION_REPORT_INTERVAL_MILLIS, COMPRESSION_REPORT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
     }
 
-    private void start() {
-        try {
-            isRunning = true;
-            while (isRunning) {
-                selector.select();
-                Set<SelectionKey> selectedKeys = selector.selectedKeys();
-                Iterator<SelectionKey> keyIterator = selectedKeys.iterator();
-                while (keyIterator.hasNext()) {
-                    SelectionKey key = keyIterator.next();
-                    keyIterator.remove();
-                    if (key.isAcceptable()) {
-                        handleTcpConnection();
-                    }
-                    if (key.isReadable()) {
-                        if (key.channel() instanceof DatagramChannel) {
-                            handleUdpRequest((DatagramChannel) key.channel());
-                        } else if (key.channel() instanceof SocketChannel) {
-                            handleTcpRequest((SocketChannel) key.channel());
+    // 첫 번째 Reactor 는 호출한 Thread 에서, 나머지는 각자의 Thread 에서 실행
+    public void start() {
+        isRunning = true;
+        for (int i = 1; i < reactors.size(); i++) {
+            Thread reactorThread = new Thread(reactors.get(i), storageName + " reactor-" + i);
+            reactorThread.setDaemon(true);
+            reactorThread.start();
+        }
+        reactors.get(0).run();
+    }
+    private static boolean isReusePortSupported() {
+        if (!Boolean.parseBoolean(System.getProperty("localStorage.reusePort", "true"))) {
+            return false;
+        }
+        try (ServerSocketChannel tcpChannel = ServerSocketChannel.open();
+             DatagramChannel udpChannel = DatagramChannel.open()) {
+            return tcpChannel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)
+                    && udpChannel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    // Reactor 마다 Selector 를 하나씩 가지고, 넘겨받은 Connection 은 자신의 Thread 에서 등록
+    private class Reactor implements Runnable {
+
+        private final int index;
+        private final Selector selector;
+        private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+        private final Queue<SelectionKey> resumedKeys = new ConcurrentLinkedQueue<>();
+
+        private Reactor(int index) throws IOException {
+            this.index = index;
+            this.selector = Selector.open();
+        }
+
+        private void assign(SocketChannel clientChannel) {
+            pendingChannels.add(clientChannel);
+            selector.wakeup();
+        }
+
+        private void resume(SelectionKey key) {
+            resumedKeys.add(key);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (isRunning) {
+                    selector.select();
+                    registerPendingChannels();
+                    processResumedKeys();
+                    Set<SelectionKey> selectedKeys = selector.selectedKeys();
+                    Iterator<SelectionKey> keyIterator = selectedKeys.iterator();
+                    while (keyIterator.hasNext()) {
+                        SelectionKey key = keyIterator.next();
+                        keyIterator.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            handleTcpConnection((ServerSocketChannel) key.channel(), this);
+                        }
+                        // 잘못된 요청으로 생긴 오류는 해당 Channel 만 닫고 Reactor 는 계속 진행
+                        if (key.isValid() && key.isWritable()) {
+                            try {
+                                handleTcpWrite(key);
+                            } catch (IOException | RuntimeException e) {
+                                System.err.println("Client connection error - " + e.getMessage());
+                                key.cancel();
+                                key.channel().close();
+                            }
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            if (key.channel() instanceof DatagramChannel) {
+                                try {
+                                    handleUdpRequest((DatagramChannel) key.channel());
+                                } catch (RuntimeException e) {
+                                    System.err.println("Invalid udp request - " + e.getMessage());
+                                }
+                            } else if (key.channel() instanceof SocketChannel) {
+                                try {
+                                    handleTcpRequest(key);
+                                } catch (IOException | RuntimeException e) {
+                                    System.err.println("Client connection error - " + e.getMessage());
+                                    key.cancel();
+                                    key.channel().close();
+                                }
+                            }
                         }
                     }
                 }
+            } catch (ClosedSelectorException ignored) {
+                // 종료 중
+            } catch (IOException e) {
+                System.err.println("Error during TCP "+ port + " reactor-" + index + " run : " + e.getMessage());
+            }
+        }
+
+        private void processResumedKeys() throws IOException {
+            SelectionKey key;
+            while ((key = resumedKeys.poll()) != null) {
+                if (!key.isValid()) {
+                    continue;
+                }
+                try {
+                    processRequests(key);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Client connection error - " + e.getMessage());
+                    key.cancel();
+                    key.channel().close();
+                }
+            }
+        }
+
+        private void registerPendingChannels() throws IOException {
+            SocketChannel clientChannel;
+            while ((clientChannel = pendingChannels.poll()) != null) {
+                clientChannel.register(selector, SelectionKey.OP_READ, new HttpConnection());
             }
-        } catch (IOException | URISyntaxException | InterruptedException e) {
-            System.err.println("Error during TCP "+ port + "server run : " + e.getMessage());
         }
     }
-    private void handleTcpConnection() throws IOException {
+    private void handleTcpConnection(ServerSocketChannel tcpChannel, Reactor acceptReactor) throws IOException {
         SocketChannel clientChannel = tcpChannel.accept();
+        if (clientChannel == null) {
+            return;
+        }
         clientChannel.configureBlocking(false);
-        clientChannel.register(selector, SelectionKey.OP_READ);
+        // SO_REUSEPORT 로 Listener 가 나뉘어 있으면 Accept 한 Reactor 가 그대로 처리
+        if (tcpChannels.size() > 1) {
+            clientChannel.register(acceptReactor.selector, SelectionKey.OP_READ, new HttpConnection());
+            return;
+        }
+        Reactor reactor = reactors.get(Math.floorMod(nextReactorIndex.getAndIncrement(), reactors.size()));
+        if (reactor == acceptReactor) {
+            clientChannel.register(reactor.selector, SelectionKey.OP_READ, new HttpConnection());
+        } else {
+            reactor.assign(clientChannel);
+        }
     }
 
-    private synchronized void  handleTcpRequest(SocketChannel clientChannel) throws IOException, URISyntaxException, InterruptedException {
+    // Keep-Alive : 응답 후에도 Connection 을 유지하고 같은 Channel 에서 다음 요청을 계속 처리
+    private void handleTcpRequest(SelectionKey key) throws IOException {
 
-        ByteBuffer buffer = ByteBuffer.allocate(1024);
-        StringBuilder requestBuilder = new StringBuilder();
+        SocketChannel clientChannel = (SocketChannel) key.channel();
+        HttpConnection connection = (HttpConnection) key.attachment();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        int bytesRead = clientChannel.read(buffer);
+        if (bytesRead == -1) {
+            clientChannel.close();
+            return;
+        }
+        buffer.flip();
+        connection.append(buffer);
+        if (connection.isReplicationStream()) {
+            handleReplicationFrames(clientChannel, connection);
+            return;
+        }
+        processRequests(key);
+    }
+    // Connection 별로 한 번에 하나의 요청만 처리해서 응답 순서를 유지하고, Worker 가 응답을 쓴 후 Reactor 에서 다음 요청을 이어서 처리
+    private void processRequests(SelectionKey key) throws IOException {
+        SocketChannel clientChannel = (SocketChannel) key.channel();
+        HttpConnection connection = (HttpConnection) key.attachment();
+        // Worker 가 다 쓰지 못한 응답이 있으면 나머지를 보낸 후에 다음 요청을 처리
+        if (connection.hasPendingResponse()) {
+            key.interestOps(SelectionKey.OP_WRITE);
+            return;
+        }
         String request;
-        while (true) {
-            int bytesRead = clientChannel.read(buffer);
-            if (bytesRead == -1) {
-                clientChannel.close();
+        while ((request = connection.pollRequest()) != null) {
+            boolean isKeepAlive = connection.isKeepAlive();
+            boolean isHttp = isHttpRequest(request);
+            RequestDto requestDto;
+            if (isHttp){
+                requestDto = parsingHttpRequest(request);
+            }else{
+                requestDto = parsingJsonRequest(request);
+            }
+            // W3 W4
+            if (requestDto.getUrl().startsWith("/backup")){
+                String awkMessage = backupProcess(requestDto);
+                String printMessage = awkMessage + " " + (requestDto.getBody() != null ? requestDto.getBody() : "");
+                Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+                System.out.println("["+timestamp+"] " +
+                        "["+storageName+"] "+"[ Reply : "+ printMessage +"]"+" [Acknowledge update]");
+                ByteBuffer responseBuffer = ByteBuffer.wrap(generateHttpResponse(awkMessage, isKeepAlive));
+                if (!writeResponse(clientChannel, connection, responseBuffer, isKeepAlive)) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                if (!isKeepAlive) {
+                    clientChannel.close();
+                    return;
+                }
+                connection.finishRequest();
+                continue;
+            }
+            // Http 로 요청한 전체 조회는 Chunk 로 나눠서 Socket 에 쓸 수 있을 때마다 이어서 전송하고 Connection 을 닫음
+            if (isHttp && isStreamingRequest(requestDto)) {
+                String etag = dataUtil.getCollectionETag();
+                if (isETagMatched(requestDto.getIfNoneMatch(), etag)) {
+                    ByteBuffer responseBuffer = ByteBuffer.wrap(generateNotModifiedResponse(etag, isKeepAlive));
+                    if (!writeResponse(clientChannel, connection, responseBuffer, isKeepAlive)) {
+                        key.interestOps(SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    if (!isKeepAlive) {
+                        clientChannel.close();
+                        return;
+                    }
+                    connection.finishRequest();
+                    continue;
+                }
+                connection.setChunkedResponse(new ChunkedResponse(dataUtil, etag));
+                key.interestOps(SelectionKey.OP_WRITE);
+                handleTcpWrite(key);
                 return;
             }
-            buffer.flip();
-            requestBuilder.append(new String(buffer.array(), 0, bytesRead));
-            buffer.clear();
-            request = requestBuilder.toString();
-            if (isHttpRequest(request)) {
-                int headerEndIndex = request.indexOf("\r\n\r\n");
-                if (headerEndIndex != -1) {
-                    String headers = request.substring(0, headerEndIndex);
-                    int contentLength = 0;
-                    for (String line : headers.split("\r\n")) {
-                        if (line.startsWith("Content-Length:")) {
-                            contentLength = Integer.parseInt(line.split(":")[1].trim());
-                            break;
-                        }
+            executor.submit(() -> {
+                try {
+                    byte[] response = isConditionalRequest(requestDto, isHttp)
+                            ? generateConditionalResponse(requestDto, isHttp, isKeepAlive) : generateServerResponse(requestDto);
+                    assert response != null;
+                    ByteBuffer responseBuffer = ByteBuffer.wrap(response);
+                    // W5 출력 후 Client 에게 전달
+                    if (!requestDto.getMethod().equals("GET")){
+                        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+                        String printMessage = requestDto.getMethod() + " " + new String(response, StandardCharsets.UTF_8);
+                        System.out.println("["+timestamp+"] " +
+                                "["+storageName+"] "+"[ Reply : "+ printMessage +" ]"+" [Acknowledge write completed]");
+                    }
+                    // 다 쓰지 못한 응답은 Reactor 에 돌려줘서 OP_WRITE 로 이어서 전송
+                    if (!writeResponse(clientChannel, connection, responseBuffer, isKeepAlive)) {
+                        resumeConnection(key);
+                        return;
                     }
-                    int totalLength = headerEndIndex + 4 + contentLength;
-                    if (request.length() >= totalLength) {
-                        break;
+                    if (!isKeepAlive) {
+                        clientChannel.close();
+                        return;
                     }
+                } catch (Exception e) {
+                    System.err.println("Error during forward thread - "+e.getMessage());
+                    try {
+                        clientChannel.close();
+                    } catch (IOException ignored) {
+                    }
+                    return;
                 }
-            } else {
-                break;
+                connection.finishRequest();
+                resumeConnection(key);
+            });
+            return;
+        }
+    }
+    // 요청을 마친 Connection 을 담당 Reactor 에 돌려줘서 이미 받아둔 다음 요청을 처리
+    private void resumeConnection(SelectionKey key) {
+        for (Reactor reactor : reactors) {
+            if (reactor.selector == key.selector()) {
+                reactor.resume(key);
+                return;
             }
         }
-        RequestDto requestDto;
-        if (isHttpRequest(request)){
-            requestDto = parsingHttpRequest(request);
-        }else{
-            requestDto = parsingJsonRequest(request);
+    }
+    // Socket 에 쓸 수 있는 만큼만 쓰고, 남은 응답은 Connection 에 두고 Reactor 가 이어서 보내도록 false 를 반환
+    private boolean writeResponse(SocketChannel clientChannel, HttpConnection connection, ByteBuffer responseBuffer, boolean isKeepAlive) throws IOException {
+        clientChannel.write(responseBuffer);
+        if (responseBuffer.hasRemaining()) {
+            connection.setPendingResponse(responseBuffer, !isKeepAlive);
+            return false;
         }
-        // W3 W4
-        if (requestDto.getUrl().startsWith("/backup")){
-            String awkMessage = backupProcess(requestDto);
-            String printMessage = awkMessage + " " + (requestDto.getBody() != null ? requestDto.getBody() : "");
-            Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-            System.out.println("["+timestamp+"] " +
-                    "["+storageName+"] "+"[ Reply : "+ printMessage +"]"+" [Acknowledge update]");
-            buffer.clear();
-            buffer.put(generateHttpResponse(awkMessage));
-            buffer.flip();
-            while (buffer.hasRemaining()) {
-                clientChannel.write(buffer);
+        return true;
+    }
+    private void handleTcpWrite(SelectionKey key) throws IOException {
+        SocketChannel clientChannel = (SocketChannel) key.channel();
+        HttpConnection connection = (HttpConnection) key.attachment();
+        if (connection.getChunkedResponse() != null) {
+            if (connection.getChunkedResponse().writeTo(clientChannel)) {
+                clientChannel.close();
             }
+            return;
+        }
+        if (!connection.writePendingResponse(clientChannel)) {
+            return;
+        }
+        if (connection.isCloseAfterResponse()) {
             clientChannel.close();
             return;
         }
-        executor.submit(() -> {
-            try {
-                String response = generateServerResponse(requestDto);
-                buffer.clear();
-                assert response != null;
-                buffer.put(response.getBytes());
-                buffer.flip();
-                // W5 출력 후 Client 에게 전달
-                if (!requestDto.getMethod().equals("GET")){
-                    Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-                    String printMessage = requestDto.getMethod() + " " + response;
-                    System.out.println("["+timestamp+"] " +
-                            "["+storageName+"] "+"[ Reply : "+ printMessage +" ]"+" [Acknowledge write completed]");
-                }
-                while (buffer.hasRemaining()) {
-                    clientChannel.write(buffer);
-                }
-            } catch (Exception e) {
-                System.err.println("Error during forward thread - "+e.getMessage());
+        key.interestOps(SelectionKey.OP_READ);
+        connection.finishRequest();
+        processRequests(key);
+    }
+    private boolean isStreamingRequest(RequestDto requestDto) {
+        return requestDto.getMethod().equals("GET") && requestDto.getUrl().equals(NOTES_URI) && isValidRequest(requestDto);
+    }
+    // W3 W4 : Binary Frame 단위로 Backup 을 적용하고 마지막으로 적용한 Sequence 를 응답
+    private void handleReplicationFrames(SocketChannel clientChannel, HttpConnection connection) throws IOException {
+        ByteBuffer frame;
+        while ((frame = connection.nextFrame()) != null) {
+            ReplicationBatch batch = ReplicationBatch.fromFrame(frame);
+            applyReplicationBatch(batch);
+            Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+            System.out.println("["+timestamp+"] " +
+                    "["+storageName+"] "+"[ Reply : Operations "+ batch.operations().size() +", Sequence "+ lastAppliedSequence +" ]"+" [Acknowledge update]");
+            ByteBuffer ackBuffer = ByteBuffer.allocate(Long.BYTES).putLong(lastAppliedSequence);
+            ackBuffer.flip();
+            while (ackBuffer.hasRemaining()) {
+                clientChannel.write(ackBuffer);
             }
-        });
+        }
     }
-    private String generateServerResponse(RequestDto requestDto) throws URISyntaxException, IOException, InterruptedException {
+    // Http 의 단건 조회와 ifNoneMatch 를 보낸 Json 요청의 전체, 단건 조회
+    private boolean isConditionalRequest(RequestDto requestDto, boolean isHttp) {
+        String url = requestDto.getUrl();
+        return requestDto.getMethod().equals("GET") && (url.equals(NOTES_URI) || url.matches(NOTES_URI + "/\\d+"))
+                && (isHttp || requestDto.getIfNoneMatch() != null);
+    }
+    // Version 으로 만든 ETag 를 함께 보내고, 요청한 ETag 와 같으면 내용 없이 304 로 응답
+    // ETag 를 내용보다 먼저 읽으므로 그 사이에 변경되면 ETag 보다 새로운 내용을 보내게 되고, 다음 조회는 304 가 되지 않음
+    private byte[] generateConditionalResponse(RequestDto requestDto, boolean isHttp, boolean isKeepAlive) throws URISyntaxException, IOException, InterruptedException {
+        String url = requestDto.getUrl();
+        String etag = url.equals(NOTES_URI) ? dataUtil.getCollectionETag()
+                : dataUtil.findETagById(Long.parseLong(url.substring(NOTES_URI.length() + 1)));
+        if (etag == null) {
+            return generateServerResponse(requestDto);
+        }
+        boolean isNotModified = isETagMatched(requestDto.getIfNoneMatch(), etag);
+        byte[] response = isNotModified ? null : generateServerResponse(requestDto);
+        if (isHttp) {
+            return isNotModified ? generateNotModifiedResponse(etag, isKeepAlive) : generateHttpResponse(response, etag, isKeepAlive);
+        }
+        return generateJsonConditionalResponse(response, etag, isNotModified);
+    }
+    // 전체 조회와 단건 조회는 저장해둔 Json byte 를 그대로 응답
+    private byte[] generateServerResponse(RequestDto requestDto) throws URISyntaxException, IOException, InterruptedException {
         String response;
         if (isValidRequest(requestDto)){
             String method = requestDto.getMethod();
             String url = requestDto.getUrl();
             if (method.equals("GET") && url.equals(NOTES_URI)){
-                response = dataUtil.findAllByJsonString();
+                return dataUtil.findAllJsonBytes();
+            }else if (method.equals("GET") && url.startsWith(FILTER_URI+"?")){
+                Map<String, String> queryParameters = parseQueryParameters(url);
+                int limit = queryParameters.containsKey("limit") ? Integer.parseInt(queryParameters.get("limit")) : PAGE_DEFAULT_LIMIT;
+                return dataUtil.filterJsonBytes(toNoteFilter(queryParameters), limit);
+            }else if (method.equals("GET") && url.startsWith(SEARCH_URI+"?")){
+                Map<String, String> queryParameters = parseQueryParameters(url);
+                int k = queryParameters.containsKey("k") ? Integer.parseInt(queryParameters.get("k")) : SEARCH_DEFAULT_K;
+                response = dataUtil.searchByJsonString(queryParameters.get("q"), k);
+            }else if (method.equals("GET") && url.startsWith(NOTES_URI+"?")){
+                Map<String, String> queryParameters = parseQueryParameters(url);
+                int limit = queryParameters.containsKey("limit") ? Integer.parseInt(queryParameters.get("limit")) : PAGE_DEFAULT_LIMIT;
+                String cursor = queryParameters.get("cursor");
+                if (isTitleQuery(queryParameters)){
+                    String titlePrefix = queryParameters.get("titlePrefix");
+                    String from = titlePrefix != null ? titlePrefix : queryParameters.getOrDefault("titleFrom", "");
+                    String to = titlePrefix != null ? TitleKey.prefixUpperBound(titlePrefix) : queryParameters.get("titleTo");
+                    return dataUtil.findTitlePageJsonBytes(from, to, cursor != null ? DataUtil.decodeTitleCursor(cursor) : null, limit, PAGE_MAX_BYTES);
+                }
+                return dataUtil.findPageJsonBytes(cursor != null ? DataUtil.decodeCursor(cursor) : null, limit, PAGE_MAX_BYTES);
             }else if (method.equals("GET") && url.matches(NOTES_URI+"/\\d+")){
                 Long id = Long.parseLong(url.split("/")[2]);
-                Optional<Data> targetData = dataUtil.findById(id);
-                if (targetData.isPresent()){
-                    response = dataUtil.convertJsonStringOneObject(targetData.get());
-                }else{
-                    response = generateJsonErrorMessage("Not exist id - " + id);
+                byte[] jsonBytes = dataUtil.findJsonBytesById(id);
+                if (jsonBytes != null){
+                    return jsonBytes;
                 }
+                response = generateJsonErrorMessage("Not exist id - " + id);
             }else{
                 // W2
                 response = forwardToPrimaryServer(requestDto,storageName);
@@ -205,40 +502,89 @@ public class LocalStorage {
         }else{
             response = generateJsonErrorMessage("Not Valid Request");
         }
-        return response;
+        return response.getBytes(StandardCharsets.UTF_8);
     }
     // 자신의 요청이 아닌 다른 Local Storage Update 받는 곳 W4
-    private String backupProcess(RequestDto requestDto){
+    private synchronized String backupProcess(RequestDto requestDto){
 
         String method = requestDto.getMethod();
         String requestBody = requestDto.getBody();
         String url = requestDto.getUrl();
         JsonObject ackObject = new JsonObject();
         ackObject.addProperty("update","successful");
+        // Primary 가 Batch 의 마지막 Sequence 와 비교할 수 있도록 실제로 적용한 마지막 Sequence 를 응답
+        if (method.equals("POST") && url.equals("/backup/batch")){
+            ReplicationBatch batch = ReplicationBatch.fromJson(requestBody);
+            applyReplicationBatch(batch);
+            long lastSequence = 0;
+            for (ReplicationOperation operation : batch.operations()) {
+                lastSequence = Math.max(lastSequence, operation.sequence());
+            }
+            if (lastAppliedSequence < lastSequence) {
+                ackObject.addProperty("update","catching up");
+            }
+            ackObject.addProperty("count", batch.operations().size());
+            ackObject.addProperty("lastAppliedSeq", lastAppliedSequence);
+            return ackObject.toString();
+        }
         if (method.equals("POST") && url.equals("/backup")){
-            JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
-            String title = jsonObject.get("title").getAsString();
-            String body = jsonObject.get("body").getAsString();
-            dataUtil.save(title,body);
+            applyBackupOperation(method, null, requestBody);
             return ackObject.toString();
         }
-        Long noteId = Long.parseLong(url.split("/")[2]);
-        if (method.equals("PUT") && url.matches("/backup/\\d+")){
-            JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
-            String title = jsonObject.has("title") ? jsonObject.get("title").getAsString() : null;
-            String body = jsonObject.has("body") ? jsonObject.get("body").getAsString() : null;
-            dataUtil.updateDataWithPutMethod(noteId,title,body);
+        if (url.matches("/backup/\\d+")){
+            applyBackupOperation(method, Long.parseLong(url.split("/")[2]), requestBody);
+        }
+        return ackObject.toString();
+    }
+    private synchronized void applyReplicationBatch(ReplicationBatch batch){
+        if (batch.epoch() != replicationEpoch){
+            requestCatchUp();
+            return;
         }
-        if (method.equals("PATCH") && url.matches("/backup/\\d+")){
+        applyReplicatedOperations(batch.operations());
+    }
+    // 이미 적용한 Sequence 는 건너뛰고, 중간에 빠진 Sequence 가 있으면 Primary 에게 Catch up 요청
+    // Batch 전체를 DataUtil Lock 안에서 적용하므로 조회는 Bulk 요청의 일부만 반영된 상태를 보지 않음
+    private void applyReplicatedOperations(List<ReplicationOperation> operations){
+        synchronized (dataUtil) {
+            for (ReplicationOperation operation : operations) {
+                if (operation.sequence() <= lastAppliedSequence) {
+                    continue;
+                }
+                if (operation.sequence() > lastAppliedSequence + 1) {
+                    requestCatchUp();
+                    return;
+                }
+                applyOperation(operation);
+                lastAppliedSequence = operation.sequence();
+            }
+        }
+    }
+    private void applyBackupOperation(String method, Long noteId, String requestBody){
+        String title = null;
+        String body = null;
+        if (requestBody != null){
             JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
-            String title = jsonObject.has("title") ? jsonObject.get("title").getAsString() : null;
-            String body = jsonObject.has("body") ? jsonObject.get("body").getAsString() : null;
-            dataUtil.updateDataWithPatchMethod(noteId,title,body);
+            title = jsonObject.has("title") ? jsonObject.get("title").getAsString() : null;
+            body = jsonObject.has("body") ? jsonObject.get("body").getAsString() : null;
         }
-        if (method.equals("DELETE") && url.matches("/backup/\\d+")){
-            dataUtil.deleteById(noteId);
+        applyOperation(new ReplicationOperation(0L, method, noteId, title, body));
+    }
+    private void applyOperation(ReplicationOperation operation){
+        Long noteId = operation.id();
+        switch (operation.method()) {
+            case "POST" -> {
+                if (noteId != null){
+                    dataUtil.save(noteId, operation.title(), operation.body());
+                }else{
+                    dataUtil.save(operation.title(), operation.body());
+                }
+            }
+            case "PUT" -> dataUtil.updateDataWithPutMethod(noteId, operation.title(), operation.body());
+            case "PATCH" -> dataUtil.updateDataWithPatchMethod(noteId, operation.title(), operation.body());
+            case "DELETE" -> dataUtil.deleteById(noteId);
+            default -> System.err.println("Unknown backup method - " + operation.method());
         }
-        return ackObject.toString();
     }
 
     private String generateJsonErrorMessage(String errMessage){
@@ -252,10 +598,26 @@ public class LocalStorage {
         String url = requestDto.getUrl();
         String body = requestDto.getBody();
 
+        if (!isValidConsistencyLevel(requestDto.getConsistencyLevel())) {
+            return false;
+        }
         // [GET]/notes
         if (method.equals("GET") && url.equals(NOTES_URI)) {
             return true;
         }
+        // [GET]/notes?limit={limit}&cursor={cursor}
+        // [GET]/notes?titlePrefix={prefix} or /notes?titleFrom={from}&titleTo={to}
+        if (method.equals("GET") && url.startsWith(NOTES_URI+"?")) {
+            return isValidPageQuery(url);
+        }
+        // [GET]/notes/filter?titleContains=&bodyContains=&minBodyLength=&maxBodyLength=&limit=
+        if (method.equals("GET") && url.startsWith(FILTER_URI+"?")) {
+            return isValidFilterQuery(url);
+        }
+        // [GET]/notes/search?q={query}&k={k}
+        if (method.equals("GET") && url.startsWith(SEARCH_URI+"?")) {
+            return isValidSearchQuery(url);
+        }
         // [GET]/notes/{id}
         if (method.equals("GET") && url.matches(NOTES_URI+"/\\d+")) {
             return true;
@@ -264,6 +626,10 @@ public class LocalStorage {
         if (method.equals("POST") && url.equals(NOTES_URI)) {
             return isValidJsonBody(method,body);
         }
+        // [POST]/notes/bulk
+        if (method.equals("POST") && url.equals(BULK_URI)) {
+            return isValidBulkBody(body);
+        }
         // [PUT]/notes/{id}
         if (method.equals("PUT") && url.matches(NOTES_URI+"/\\d+")) {
             return body == null || isValidJsonBody(method,body);
@@ -276,6 +642,83 @@ public class LocalStorage {
         // [DELETE]/notes/{id}
         return method.equals("DELETE") && url.matches(NOTES_URI + "/\\d+");
     }
+    // limit 와 cursor 만 허용하고, limit 은 1 ~ PAGE_MAX_LIMIT, cursor 는 이전 응답의 nextCursor 이어야 함
+    // title 조회는 titlePrefix 또는 titleFrom, titleTo 범위 중 하나만 사용하고 cursor 도 title 조회의 nextCursor 이어야 함
+    private boolean isValidPageQuery(String url) {
+        Map<String, String> queryParameters = parseQueryParameters(url);
+        if (queryParameters.size() != url.substring(url.indexOf('?') + 1).split("&").length) {
+            return false;
+        }
+        boolean isTitleQuery = isTitleQuery(queryParameters);
+        if (queryParameters.containsKey("titlePrefix")
+                && (queryParameters.containsKey("titleFrom") || queryParameters.containsKey("titleTo"))) {
+            return false;
+        }
+        for (Map.Entry<String, String> parameter : queryParameters.entrySet()) {
+            String value = parameter.getValue();
+            boolean isValid = switch (parameter.getKey()) {
+                case "limit" -> value.matches("\\d{1,9}") && Integer.parseInt(value) >= 1 && Integer.parseInt(value) <= PAGE_MAX_LIMIT;
+                case "cursor" -> isTitleQuery ? DataUtil.decodeTitleCursor(value) != null : DataUtil.decodeCursor(value) != null;
+                case "titlePrefix", "titleFrom", "titleTo" -> !value.isEmpty();
+                default -> false;
+            };
+            if (!isValid) {
+                return false;
+            }
+        }
+        return true;
+    }
+    // 조건이 하나 이상 있어야 하고, 길이는 0 이상의 정수, limit 은 1 ~ PAGE_MAX_LIMIT
+    private boolean isValidFilterQuery(String url) {
+        Map<String, String> queryParameters = parseQueryParameters(url);
+        if (queryParameters.size() != url.substring(url.indexOf('?') + 1).split("&").length) {
+            return false;
+        }
+        boolean hasCondition = false;
+        for (Map.Entry<String, String> parameter : queryParameters.entrySet()) {
+            String value = parameter.getValue();
+            boolean isValid = switch (parameter.getKey()) {
+                case "titleContains", "bodyContains" -> !value.isEmpty();
+                case "minBodyLength", "maxBodyLength" -> value.matches("\\d{1,9}");
+                case "limit" -> value.matches("\\d{1,9}") && Integer.parseInt(value) >= 1 && Integer.parseInt(value) <= PAGE_MAX_LIMIT;
+                default -> false;
+            };
+            if (!isValid) {
+                return false;
+            }
+            hasCondition |= !parameter.getKey().equals("limit");
+        }
+        return hasCondition;
+    }
+    private NoteFilter toNoteFilter(Map<String, String> queryParameters) {
+        return new NoteFilter(queryParameters.get("titleContains"), queryParameters.get("bodyContains"),
+                queryParameters.containsKey("minBodyLength") ? Integer.valueOf(queryParameters.get("minBodyLength")) : null,
+                queryParameters.containsKey("maxBodyLength") ? Integer.valueOf(queryParameters.get("maxBodyLength")) : null);
+    }
+    // q 는 필수, k 는 1 ~ PAGE_MAX_LIMIT
+    private boolean isValidSearchQuery(String url) {
+        Map<String, String> queryParameters = parseQueryParameters(url);
+        if (queryParameters.size() != url.substring(url.indexOf('?') + 1).split("&").length
+                || !queryParameters.containsKey("q") || queryParameters.get("q").isBlank()) {
+            return false;
+        }
+        for (Map.Entry<String, String> parameter : queryParameters.entrySet()) {
+            String value = parameter.getValue();
+            boolean isValid = switch (parameter.getKey()) {
+                case "q" -> true;
+                case "k" -> value.matches("\\d{1,9}") && Integer.parseInt(value) >= 1 && Integer.parseInt(value) <= PAGE_MAX_LIMIT;
+                default -> false;
+            };
+            if (!isValid) {
+                return false;
+            }
+        }
+        return true;
+    }
+    private boolean isTitleQuery(Map<String, String> queryParameters) {
+        return queryParameters.containsKey("titlePrefix") || queryParameters.containsKey("titleFrom")
+                || queryParameters.containsKey("titleTo");
+    }
     private boolean isValidJsonBody(String method,String body) {
         if (body == null || body.trim().isEmpty()) {
             return false;
@@ -290,9 +733,45 @@ public class LocalStorage {
             return false;
         }
     }
+    // 1 ~ BULK_MAX_OPERATIONS 개의 Operation 배열
+    // create 는 title 과 body, update 와 patch 는 id 와 title 또는 body, delete 는 id 만 필요
+    private boolean isValidBulkBody(String body) {
+        if (body == null || body.trim().isEmpty()) {
+            return false;
+        }
+        try {
+            JsonArray operations = JsonParser.parseString(body).getAsJsonArray();
+            if (operations.isEmpty() || operations.size() > BULK_MAX_OPERATIONS) {
+                return false;
+            }
+            for (JsonElement element : operations) {
+                JsonObject operation = element.getAsJsonObject();
+                String op = operation.get("op").getAsString();
+                boolean hasId = operation.has("id") && operation.get("id").getAsString().matches("\\d{1,18}");
+                boolean isValid = switch (op) {
+                    case "create" -> !operation.has("id") && operation.has("title") && operation.has("body");
+                    case "update", "patch" -> hasId && (operation.has("title") || operation.has("body"));
+                    case "delete" -> hasId && !operation.has("title") && !operation.has("body");
+                    default -> false;
+                };
+                if (!isValid) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
     private String initializeDataStorage() throws IOException, URISyntaxException, InterruptedException {
 
-        URI uri = new URI(PRIMARY_SERVER_URL+"/"+port);
+        String query = "?protocol=" + REPLICATION_PROTOCOL;
+        synchronized (this) {
+            if (replicationEpoch != 0) {
+                query += "&epoch=" + replicationEpoch + "&since=" + lastAppliedSequence;
+            }
+        }
+        URI uri = new URI(PRIMARY_SERVER_URL+"/"+port+query);
         HttpRequest ackRequest = HttpRequest.newBuilder()
                 .uri(uri)
                 .header("Content-Type", "application/json")
@@ -302,29 +781,156 @@ public class LocalStorage {
         HttpResponse<String> response = httpClient.send(ackRequest, HttpResponse.BodyHandlers.ofString());
         return response.body();
     }
+    // 전체 Snapshot 또는 since 이후의 Operation 목록을 적용
+    private synchronized void applyReplicationResponse(String response){
+        JsonObject responseObject = JsonParser.parseString(response).getAsJsonObject();
+        long epoch = responseObject.get("epoch").getAsLong();
+        long sequence = responseObject.get("seq").getAsLong();
+        if (responseObject.has("snapshot")){
+            List<Data> initialData = new ArrayList<>();
+            for(JsonElement element : responseObject.getAsJsonArray("snapshot")){
+                JsonObject jsonObject = element.getAsJsonObject();
+                Long id = jsonObject.get("id").getAsLong();
+                String title = jsonObject.get("title").isJsonNull() ? null : jsonObject.get("title").getAsString();
+                String body = jsonObject.get("body").isJsonNull() ? null : jsonObject.get("body").getAsString();
+                initialData.add(new Data(id,title,body));
+            }
+            DataUtil previousDataUtil = dataUtil;
+            dataUtil = new DataUtil(initialData);
+            previousDataUtil.releaseAll();
+            lastAppliedSequence = sequence;
+        }else{
+            List<ReplicationOperation> operations = new ArrayList<>();
+            for (JsonElement element : responseObject.getAsJsonArray("operations")){
+                operations.add(ReplicationOperation.fromJson(element.getAsJsonObject()));
+            }
+            applyReplicatedOperations(operations);
+            lastAppliedSequence = Math.max(lastAppliedSequence, sequence);
+        }
+        replicationEpoch = epoch;
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        System.out.println("["+timestamp+"] " +
+                "["+storageName+"] "+"[ Sequence : "+ lastAppliedSequence +" ]"+" [Synchronized with primary]");
+    }
+    // 압축률과 압축, 해제에 걸린 평균 시간
+    private void printCompressionReport(){
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        System.out.println("["+timestamp+"] " + "["+storageName+"] " + BodyCodec.getInstance().report());
+    }
+    // Primary 에서 제외됐거나, 지난 Heartbeat 때의 Sequence 까지도 적용하지 못했으면 Catch up 요청
+    private void sendHeartbeat(){
+        try {
+            HttpRequest heartbeatRequest = HttpRequest.newBuilder()
+                    .uri(new URI(PRIMARY_SERVER_URL + "/heartbeat/" + port))
+                    .timeout(Duration.ofMillis(HEARTBEAT_INTERVAL_MILLIS))
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+            HttpResponse<String> response = httpClient.send(heartbeatRequest, HttpResponse.BodyHandlers.ofString());
+            JsonObject responseObject = JsonParser.parseString(response.body()).getAsJsonObject();
+            boolean isRegistered = responseObject.get("registered").getAsBoolean();
+            long epoch = responseObject.get("epoch").getAsLong();
+            long sequence = responseObject.get("seq").getAsLong();
+            boolean isBehind;
+            synchronized (this) {
+                isBehind = epoch != replicationEpoch || lastAppliedSequence < lastHeartbeatSequence;
+                lastHeartbeatSequence = sequence;
+            }
+            if (!isRegistered || isBehind) {
+                Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+                System.out.println("["+timestamp+"] " +
+                        "["+storageName+"] "+"[ Registered : "+isRegistered+", Sequence : "+sequence+" ]"+" [Heartbeat requests catch up]");
+                requestCatchUp();
+            }
+        } catch (Exception e) {
+            System.err.println("Error during heartbeat - " + e.getMessage());
+        }
+    }
+    private synchronized void requestCatchUp(){
+        if (isCatchingUp){
+            isCatchUpPending = true;
+            return;
+        }
+        isCatchingUp = true;
+        executor.submit(this::catchUpFromPrimary);
+    }
+    private void catchUpFromPrimary(){
+        try {
+            while (true) {
+                String response = initializeDataStorage();
+                synchronized (this) {
+                    applyReplicationResponse(response);
+                    if (!isCatchUpPending) {
+                        isCatchingUp = false;
+                        return;
+                    }
+                    isCatchUpPending = false;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error during catch up - " + e.getMessage());
+            synchronized (this) {
+                isCatchingUp = false;
+            }
+        }
+    }
+    private Path getLocalSnapshotPath(){
+        return Paths.get("./data", storageName.replaceAll("[^A-Za-z0-9]", "_") + ".json");
+    }
+    private void loadLocalSnapshot(){
+        Path snapshotPath = getLocalSnapshotPath();
+        if (!Files.exists(snapshotPath)){
+            return;
+        }
+        try {
+            applyReplicationResponse(Files.readString(snapshotPath));
+        } catch (Exception e) {
+            System.err.println("Error loading local snapshot - " + e.getMessage());
+        }
+    }
+    // 종료 시 마지막으로 적용한 Sequence 와 함께 저장해두고 재시작 시 변경분만 요청
+    private synchronized void saveLocalSnapshot(){
+        try {
+            Path snapshotPath = getLocalSnapshotPath();
+            Files.createDirectories(snapshotPath.getParent());
+            Files.writeString(snapshotPath, "{\"epoch\":" + replicationEpoch + ",\"seq\":" + lastAppliedSequence
+                    + ",\"snapshot\":" + dataUtil.findAllByJsonString() + "}");
+        } catch (IOException e) {
+            System.err.println("Error saving local snapshot - " + e.getMessage());
+        }
+    }
 
-    private synchronized void handleUdpRequest(DatagramChannel udpChannel) throws IOException, URISyntaxException, InterruptedException {
-        ByteBuffer buffer = ByteBuffer.allocate(1024);
+    private void handleUdpRequest(DatagramChannel udpChannel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(UDP_MAX_REQUEST_BYTES);
         SocketAddress address = udpChannel.receive(buffer);
+        if (address == null) {
+            return;
+        }
         buffer.flip();
-        String request = new String(buffer.array(), 0, buffer.limit());
+        String request = new String(buffer.array(), 0, buffer.limit(), StandardCharsets.UTF_8);
         RequestDto requestDto = parsingJsonRequest(request);
         executor.submit(() -> {
             try {
-                String response = generateServerResponse(requestDto);
-                buffer.clear();
+                byte[] response = isConditionalRequest(requestDto, false)
+                        ? generateConditionalResponse(requestDto, false, false) : generateServerResponse(requestDto);
                 assert response != null;
-                buffer.put(response.getBytes());
-                buffer.flip();
+                // Datagram 하나에 들어가지 않는 응답은 보내지 않고 다른 Protocol 을 사용하도록 안내
+                // 이미 적용된 Bulk 요청은 Operation 별 결과 대신 적용된 수만 응답
+                if (response.length > UDP_MAX_RESPONSE_BYTES) {
+                    response = (requestDto.getUrl().equals(BULK_URI) ? generateBulkSummary(response)
+                            : generateJsonErrorMessage("Response too large for udp - use tcp or http"))
+                            .getBytes(StandardCharsets.UTF_8);
+                }
+                ByteBuffer responseBuffer = ByteBuffer.wrap(response);
                 // W5 출력 후 Client 에게 전달
                 if (!requestDto.getMethod().equals("GET")){
                     Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-                    String printMessage = requestDto.getMethod() + " " + response;
+                    String printMessage = requestDto.getMethod() + " " + new String(response, StandardCharsets.UTF_8);
                     System.out.println("["+timestamp+"] " +
                             "["+storageName+"] "+"[ Reply : "+ printMessage +" ]"+" [Acknowledge write completed]");
                 }
-                while (buffer.hasRemaining()) {
-                    udpChannel.send(buffer,address);
+                while (responseBuffer.hasRemaining()) {
+                    udpChannel.send(responseBuffer,address);
                 }
             } catch (Exception e) {
                 System.err.println("Error during forward thread - "+e.getMessage());
@@ -332,17 +938,47 @@ public class LocalStorage {
         });
     }
 
+    // Consistency Level 을 만족하지 못한 응답은 Primary 의 msg 를 유지하고 result 안의 결과를 셈
+    private String generateBulkSummary(byte[] response) {
+        JsonObject responseObject = JsonParser.parseString(new String(response, StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonObject summaryObject = new JsonObject();
+        if (responseObject.has("result")) {
+            summaryObject.add("msg", responseObject.get("msg"));
+            responseObject = responseObject.getAsJsonObject("result");
+        } else {
+            summaryObject.addProperty("msg", "Results too large for udp - use tcp or http for each result");
+        }
+        JsonArray results = responseObject.getAsJsonArray("results");
+        int appliedCount = 0;
+        for (JsonElement result : results) {
+            if (result.getAsJsonObject().get("msg").getAsString().equals("OK")) {
+                appliedCount++;
+            }
+        }
+        summaryObject.addProperty("applied", appliedCount);
+        summaryObject.addProperty("total", results.size());
+        return summaryObject.toString();
+    }
+
     public void closeLocalStorage(){
         try {
             isRunning = false;
-            if (selector != null && selector.isOpen()) {
-                selector.close();
+            heartbeatScheduler.shutdownNow();
+            saveLocalSnapshot();
+            for (Reactor reactor : reactors) {
+                if (reactor.selector.isOpen()) {
+                    reactor.selector.close();
+                }
             }
-            if (tcpChannel != null && tcpChannel.isOpen()) {
-                tcpChannel.close();
+            for (ServerSocketChannel tcpChannel : tcpChannels) {
+                if (tcpChannel.isOpen()) {
+                    tcpChannel.close();
+                }
             }
-            if (udpChannel != null && udpChannel.isOpen()) {
-                udpChannel.close();
+            for (DatagramChannel udpChannel : udpChannels) {
+                if (udpChannel.isOpen()) {
+                    udpChannel.close();
+                }
             }
             String output = """
                     ====================
@@ -5,5 +5,6 @@ public class Main {
         int localStoragePort = Integer.parseInt(args[2]);
         LocalStorage localStorage = new LocalStorage(localStorageName,ip,localStoragePort);
         Runtime.getRuntime().addShutdownHook(new Thread(localStorage::closeLocalStorage));
+        localStorage.start();
     }
-}
\ No newline at end of file
+}
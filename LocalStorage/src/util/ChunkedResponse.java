@@ -0,0 +1,133 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+// 전체 조회 결과를 Transfer-Encoding: chunked 로 나눠서 보내는 응답
+// id 순서로 조금씩 가져와서 하나의 Buffer 에 다시 채워 쓰므로 Data 수와 관계없이 사용하는 Memory 가 일정함
+// Lock 을 잡은 채로 보내지 않으므로 보내는 도중에 변경된 Note 는 아직 보내지 않은 id 에만 반영됨
+public class ChunkedResponse {
+
+    private static final int CHUNK_SIZE = Integer.getInteger("localStorage.chunkSize", 16 * 1024);
+    private static final int RECORDS_PER_FETCH = 64;
+    // Chunk 크기는 채운 후에 알 수 있으므로 앞에 고정 길이 자리를 비워두고 0 으로 채운 16진수로 기록
+    private static final int SIZE_LINE_LENGTH = 10;
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+
+    private final DataUtil dataUtil;
+    private final ByteBuffer chunkBuffer = ByteBuffer.allocate(CHUNK_SIZE);
+    private ByteBuffer pending;
+    private List<Map.Entry<Long, byte[]>> records = List.of();
+    private int recordIndex = 0;
+    private Long lastId = null;
+    private boolean isArrayStarted = false;
+    private boolean isFirstRecord = true;
+    private boolean isLastFetch = false;
+    private boolean isBodyFinished = false;
+    private boolean isDone = false;
+
+    // etag 는 보내기 시작할 때의 Version 이므로, 보내는 도중에 변경되면 다음 조회에서 304 가 아닌 전체 응답을 받음
+    public ChunkedResponse(DataUtil dataUtil, String etag) {
+        this.dataUtil = dataUtil;
+        this.pending = ByteBuffer.wrap(("HTTP/1.1 200 OK\r\n" +
+                "Content-Type: application/json\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "ETag: " + etag + "\r\n" +
+                "Connection: close\r\n" +
+                "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Socket 에 쓸 수 있는 만큼 쓰고, 마지막 Chunk 까지 보냈으면 true
+    public boolean writeTo(SocketChannel channel) throws IOException {
+        while (true) {
+            if (pending.hasRemaining()) {
+                channel.write(pending);
+                if (pending.hasRemaining()) {
+                    return false;
+                }
+            }
+            if (isDone) {
+                return true;
+            }
+            pending = nextChunk();
+        }
+    }
+
+    private ByteBuffer nextChunk() {
+        if (isBodyFinished) {
+            isDone = true;
+            return ByteBuffer.wrap(LAST_CHUNK);
+        }
+        chunkBuffer.clear();
+        chunkBuffer.position(SIZE_LINE_LENGTH);
+        if (!isArrayStarted) {
+            chunkBuffer.put((byte) '[');
+            isArrayStarted = true;
+        }
+        while (true) {
+            if (recordIndex == records.size()) {
+                if (isLastFetch) {
+                    if (chunkBuffer.remaining() < 3) {
+                        break;
+                    }
+                    chunkBuffer.put((byte) ']');
+                    isBodyFinished = true;
+                    break;
+                }
+                fetchRecords();
+                continue;
+            }
+            byte[] jsonBytes = records.get(recordIndex).getValue();
+            // 구분자와 Chunk 끝의 CRLF 자리를 남겨둠
+            int needed = jsonBytes.length + 1 + 2;
+            if (chunkBuffer.remaining() < needed) {
+                if (chunkBuffer.position() > SIZE_LINE_LENGTH) {
+                    break;
+                }
+                // Buffer 보다 큰 Note 는 그 Note 만으로 Chunk 를 만듦
+                return largeRecordChunk(jsonBytes);
+            }
+            if (!isFirstRecord) {
+                chunkBuffer.put((byte) ',');
+            }
+            chunkBuffer.put(jsonBytes);
+            isFirstRecord = false;
+            recordIndex++;
+        }
+        return finishChunk(chunkBuffer);
+    }
+
+    private ByteBuffer largeRecordChunk(byte[] jsonBytes) {
+        ByteBuffer chunk = ByteBuffer.allocate(SIZE_LINE_LENGTH + 1 + jsonBytes.length + 2);
+        chunk.position(SIZE_LINE_LENGTH);
+        if (!isFirstRecord) {
+            chunk.put((byte) ',');
+        }
+        chunk.put(jsonBytes);
+        isFirstRecord = false;
+        recordIndex++;
+        return finishChunk(chunk);
+    }
+
+    private ByteBuffer finishChunk(ByteBuffer chunk) {
+        int dataLength = chunk.position() - SIZE_LINE_LENGTH;
+        chunk.put((byte) '\r').put((byte) '\n');
+        chunk.flip();
+        byte[] sizeLine = String.format("%08x\r\n", dataLength).getBytes(StandardCharsets.US_ASCII);
+        chunk.put(0, sizeLine);
+        return chunk;
+    }
+
+    private void fetchRecords() {
+        records = dataUtil.findJsonBytesAfter(lastId, RECORDS_PER_FETCH);
+        recordIndex = 0;
+        if (!records.isEmpty()) {
+            lastId = records.get(records.size() - 1).getKey();
+        }
+        isLastFetch = records.size() < RECORDS_PER_FETCH;
+    }
+}
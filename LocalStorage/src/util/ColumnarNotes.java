@@ -0,0 +1,158 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// 조건 검색용으로 Data 를 Column 별 배열에 모아둔 읽기 전용 복사본
+// id 는 long[], title 과 body 는 UTF-8 byte 를 하나로 이어 붙이고 각 Note 의 시작 위치를 int[] 로 가짐
+// 만든 후에는 바뀌지 않으므로 Lock 없이 여러 Thread 가 구간을 나눠서 동시에 검사
+public class ColumnarNotes {
+
+    // 이 수보다 적은 구간은 더 나누지 않고 한 Thread 에서 검사
+    private static final int SCAN_THRESHOLD = Integer.getInteger("localStorage.columnar.scanThreshold", 4096);
+
+    private final long[] ids;
+    // i 번째 title 은 titleColumn 의 titleOffsets[i] ~ titleOffsets[i + 1], null 이면 titleNulls[i]
+    private final String titleColumn;
+    private final int[] titleOffsets;
+    private final boolean[] titleNulls;
+    private final String bodyColumn;
+    private final int[] bodyOffsets;
+    private final boolean[] bodyNulls;
+    private final int[] bodyLengths;
+
+    // dataList 는 id 순서여야 함
+    public ColumnarNotes(Collection<Data> dataList) {
+        int size = dataList.size();
+        ids = new long[size];
+        titleOffsets = new int[size + 1];
+        titleNulls = new boolean[size];
+        bodyOffsets = new int[size + 1];
+        bodyNulls = new boolean[size];
+        bodyLengths = new int[size];
+        byte[][] titles = new byte[size][];
+        byte[][] bodies = new byte[size][];
+        int row = 0;
+        for (Data data : dataList) {
+            String title = data.getTitle();
+            String body = data.getBody();
+            ids[row] = data.getId();
+            titleNulls[row] = title == null;
+            bodyNulls[row] = body == null;
+            titles[row] = title == null ? new byte[0] : title.getBytes(StandardCharsets.UTF_8);
+            bodies[row] = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+            bodyLengths[row] = body == null ? 0 : body.length();
+            titleOffsets[row + 1] = titleOffsets[row] + titles[row].length;
+            bodyOffsets[row + 1] = bodyOffsets[row] + bodies[row].length;
+            row++;
+        }
+        titleColumn = pack(titles, titleOffsets);
+        bodyColumn = pack(bodies, bodyOffsets);
+    }
+
+    // 조건을 만족하는 id 를 id 순서로 반환
+    public long[] scan(NoteFilter filter) {
+        return ForkJoinPool.commonPool().invoke(new ScanTask(toColumnString(filter.titleContainsBytes()),
+                toColumnString(filter.bodyContainsBytes()), filter, 0, ids.length));
+    }
+
+    private class ScanTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final String titleContains;
+        private final String bodyContains;
+        private final NoteFilter filter;
+        private final int from;
+        private final int to;
+
+        private ScanTask(String titleContains, String bodyContains, NoteFilter filter, int from, int to) {
+            this.titleContains = titleContains;
+            this.bodyContains = bodyContains;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= SCAN_THRESHOLD) {
+                return scanRange();
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(titleContains, bodyContains, filter, from, middle);
+            ScanTask right = new ScanTask(titleContains, bodyContains, filter, middle, to);
+            left.fork();
+            long[] rightIds = right.compute();
+            long[] leftIds = left.join();
+            long[] merged = Arrays.copyOf(leftIds, leftIds.length + rightIds.length);
+            System.arraycopy(rightIds, 0, merged, leftIds.length, rightIds.length);
+            return merged;
+        }
+
+        private long[] scanRange() {
+            boolean[] titleHits = titleContains == null ? null : findRows(titleColumn, titleOffsets, titleNulls, titleContains, from, to);
+            boolean[] bodyHits = bodyContains == null ? null : findRows(bodyColumn, bodyOffsets, bodyNulls, bodyContains, from, to);
+            long[] matched = new long[Math.min(to - from, 64)];
+            int count = 0;
+            for (int row = from; row < to; row++) {
+                if (!filter.isInBodyLength(bodyLengths[row])
+                        || (titleHits != null && !titleHits[row - from])
+                        || (bodyHits != null && !bodyHits[row - from])) {
+                    continue;
+                }
+                if (count == matched.length) {
+                    matched = Arrays.copyOf(matched, count * 2);
+                }
+                matched[count++] = ids[row];
+            }
+            return Arrays.copyOf(matched, count);
+        }
+    }
+
+    // Note 별로 나눠서 찾지 않고 구간 전체를 한 번에 찾은 후, 찾은 위치가 속한 Note 가 target 을 모두 포함하면 표시
+    // 표시한 Note 의 나머지는 건너뛰고 다음 Note 부터 다시 찾음
+    private static boolean[] findRows(String column, int[] offsets, boolean[] nulls, String target, int from, int to) {
+        boolean[] hits = new boolean[to - from];
+        if (target.isEmpty()) {
+            for (int row = from; row < to; row++) {
+                hits[row - from] = !nulls[row];
+            }
+            return hits;
+        }
+        int end = offsets[to];
+        int position = offsets[from];
+        int row = from;
+        while (true) {
+            int found = column.indexOf(target, position);
+            if (found == -1 || found + target.length() > end) {
+                return hits;
+            }
+            // 찾은 위치는 계속 커지므로 row 도 앞으로만 이동
+            while (offsets[row + 1] <= found) {
+                row++;
+            }
+            if (found + target.length() <= offsets[row + 1]) {
+                hits[row - from] = true;
+                position = offsets[row + 1];
+            } else {
+                position = found + 1;
+            }
+        }
+    }
+
+    // UTF-8 byte 를 ISO-8859-1 로 읽으면 byte 하나가 문자 하나가 되므로 String.indexOf 로 byte 를 비교할 수 있음
+    private static String toColumnString(byte[] bytes) {
+        return bytes == null ? null : new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String pack(byte[][] values, int[] offsets) {
+        byte[] packed = new byte[offsets[values.length]];
+        for (int i = 0; i < values.length; i++) {
+            System.arraycopy(values[i], 0, packed, offsets[i], values[i].length);
+        }
+        return toColumnString(packed);
+    }
+}
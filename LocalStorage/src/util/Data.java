@@ -1,30 +1,93 @@
 package util;
 
+// Off-heap 모드에서는 title 과 body 를 SlabStore 에 저장하고 Handle 만 가지고 있음
+// 조회 응답용 Json 은 처음 조회할 때 만들어두고 title 이나 body 가 바뀌면 버림
+// 압축 모드에서는 긴 body 를 압축한 byte 로 가지고 있다가 getBody 를 호출할 때마다 풀어서 반환
 public class Data {
 
     private Long id;
     private String title;
     private String body;
+    private byte[] compressedBody;
+    private boolean isBodyCompressed;
+    private long titleHandle = SlabStore.NULL_HANDLE;
+    private long bodyHandle = SlabStore.NULL_HANDLE;
+    private byte[] jsonBytes;
+    private long jsonHandle = SlabStore.NULL_HANDLE;
+    private long version;
 
     public Data(Long id, String title, String body) {
         this.id = id;
-        this.title = title;
-        this.body = body;
+        setTitle(title);
+        setBody(body);
     }
     public String getBody() {
-        return body;
+        if (isBodyCompressed) {
+            byte[] compressed = SlabStore.isEnabled() ? SlabStore.getInstance().loadBytes(bodyHandle) : compressedBody;
+            return BodyCodec.getInstance().decompress(compressed);
+        }
+        return SlabStore.isEnabled() ? SlabStore.getInstance().load(bodyHandle) : body;
     }
 
     public void setBody(String body) {
-        this.body = body;
+        invalidateJsonBytes();
+        byte[] compressed = BodyCodec.isEnabled() ? BodyCodec.getInstance().compress(body) : null;
+        isBodyCompressed = compressed != null;
+        if (SlabStore.isEnabled()) {
+            SlabStore.getInstance().retire(bodyHandle);
+            bodyHandle = isBodyCompressed ? SlabStore.getInstance().storeBytes(compressed) : SlabStore.getInstance().store(body);
+        } else {
+            this.body = isBodyCompressed ? null : body;
+            this.compressedBody = compressed;
+        }
     }
 
     public String getTitle() {
-        return title;
+        return SlabStore.isEnabled() ? SlabStore.getInstance().load(titleHandle) : title;
     }
 
     public void setTitle(String title) {
-        this.title = title;
+        invalidateJsonBytes();
+        if (SlabStore.isEnabled()) {
+            SlabStore.getInstance().retire(titleHandle);
+            titleHandle = SlabStore.getInstance().store(title);
+        } else {
+            this.title = title;
+        }
+    }
+
+    public byte[] getJsonBytes() {
+        return SlabStore.isEnabled() ? SlabStore.getInstance().loadBytes(jsonHandle) : jsonBytes;
+    }
+
+    // 압축한 body 를 Json 으로 다시 풀어서 들고 있지 않도록 압축하지 않은 Data 만 저장
+    public void setJsonBytes(byte[] jsonBytes) {
+        if (isBodyCompressed) {
+            return;
+        }
+        invalidateJsonBytes();
+        if (SlabStore.isEnabled()) {
+            jsonHandle = SlabStore.getInstance().storeBytes(jsonBytes);
+        } else {
+            this.jsonBytes = jsonBytes;
+        }
+    }
+
+    private void invalidateJsonBytes() {
+        if (SlabStore.isEnabled()) {
+            SlabStore.getInstance().retire(jsonHandle);
+            jsonHandle = SlabStore.NULL_HANDLE;
+        } else {
+            jsonBytes = null;
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
     }
 
     public Long getId() {
@@ -35,5 +98,15 @@ public class Data {
         this.id = id;
     }
 
+    // 삭제되거나 Snapshot 으로 교체된 Data 의 Off-heap 공간을 반납
+    public void release() {
+        invalidateJsonBytes();
+        if (SlabStore.isEnabled()) {
+            SlabStore.getInstance().retire(titleHandle);
+            SlabStore.getInstance().retire(bodyHandle);
+            titleHandle = SlabStore.NULL_HANDLE;
+            bodyHandle = SlabStore.NULL_HANDLE;
+        }
+    }
 
 }
@@ -1,66 +1,398 @@
 package util;
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 
+// 여러 Reactor 와 Worker Thread 가 함께 사용하므로 모든 접근은 synchronized 로 처리
+// id 순서로 정렬해서 저장하므로 Cursor 이후의 Page 를 전체 목록 없이 바로 찾을 수 있음
+// title 조회를 위해 (title, id) 로 정렬한 Index 를 함께 변경
 public class DataUtil {
 
-    private final List<Data> dataList;
+    private static final String CURSOR_PREFIX = "id:";
+    private static final String TITLE_CURSOR_PREFIX = "title:";
+    // 조건 검색을 Column 배열 복사본에서 여러 Thread 로 나눠서 할지, Data 를 하나씩 확인할지
+    private static final boolean COLUMNAR_ENABLED = Boolean.getBoolean("localStorage.columnar");
+    private final NavigableMap<Long, Data> dataMap = new TreeMap<>();
+    private final NavigableSet<TitleKey> titleIndex = new TreeSet<>();
+    private final InvertedIndex bodyIndex = new InvertedIndex();
     private Long currentId;
+    private static final AtomicLong instanceCount = new AtomicLong();
+    // 변경될 때마다 증가하고, 전체 조회 Json 은 만들 때의 dataVersion 과 같을 때만 재사용
+    // 변경된 Data 는 변경 후의 dataVersion 을 자신의 Version 으로 가짐
+    private long dataVersion = 0;
+    // Snapshot 으로 교체된 DataUtil 이나 재시작한 Process 의 Version 과 ETag 가 겹치지 않도록 붙이는 값
+    private final String etagPrefix = Long.toHexString(System.currentTimeMillis()) + "." + instanceCount.incrementAndGet();
+    private long collectionJsonVersion = -1;
+    private byte[] collectionJsonBytes;
+    // 복사본을 만든 후 변경된 id, 이 수가 많아지면 다음 조건 검색에서 복사본을 다시 만듦
+    private static final int COLUMNAR_MIN_CHANGES_TO_REBUILD = 1024;
+    private ColumnarNotes columnarNotes;
+    private final NavigableSet<Long> columnarChangedIds = new TreeSet<>();
+
+    // 복사본과 함께, 복사본에서 제외할 변경된 id 와 그 중 현재 Data 가 조건을 만족하는 id
+    private record ColumnarView(ColumnarNotes columnarNotes, long[] changedIds, long[] matchedIds) { }
 
     public DataUtil(List<Data> dataList){
-        this.dataList = dataList;
-        this.currentId = (long) dataList.size();
+        for (Data data : dataList) {
+            dataMap.put(data.getId(), data);
+            addTitleIndex(data);
+            bodyIndex.index(data.getId(), null, data.getBody());
+        }
+        this.currentId = dataMap.isEmpty() ? 0L : dataMap.lastKey();
     }
-    public void save(String title, String body) {
+    public synchronized void save(String title, String body) {
         Data newData = new Data(++currentId, title, body);
-        dataList.add(newData);
+        dataMap.put(newData.getId(), newData);
+        addTitleIndex(newData);
+        bodyIndex.index(newData.getId(), null, body);
+        newData.setVersion(++dataVersion);
+        markColumnarChanged(newData.getId());
+    }
+    public synchronized void save(Long id, String title, String body) {
+        Data newData = new Data(id, title, body);
+        Data previousData = dataMap.put(id, newData);
+        String previousBody = null;
+        if (previousData != null) {
+            removeTitleIndex(previousData);
+            previousBody = previousData.getBody();
+            previousData.release();
+        }
+        addTitleIndex(newData);
+        bodyIndex.index(id, previousBody, body);
+        currentId = Math.max(currentId, id);
+        newData.setVersion(++dataVersion);
+        markColumnarChanged(id);
+    }
+    public synchronized String getCollectionETag() {
+        return "\"" + etagPrefix + "-" + dataVersion + "\"";
+    }
+    // 없는 id 이면 null
+    public synchronized String findETagById(Long id) {
+        Data data = dataMap.get(id);
+        return data == null ? null : "\"" + etagPrefix + "-" + id + "-" + data.getVersion() + "\"";
+    }
+    public synchronized Optional<Data> findById(Long id) {
+        return Optional.ofNullable(dataMap.get(id));
+    }
+    // 직렬화한 Json 을 Data 에 저장해두고 변경될 때까지 다시 만들지 않음, 없는 id 이면 null
+    public synchronized byte[] findJsonBytesById(Long id) {
+        Optional<Data> dataOptional = findById(id);
+        if (dataOptional.isEmpty()) {
+            return null;
+        }
+        return getJsonBytes(dataOptional.get());
     }
-    public Optional<Data> findById(Long id) {
-        return dataList.stream()
-                .filter(data -> data.getId().equals(id))
-                .findFirst();
+    private byte[] getJsonBytes(Data data) {
+        byte[] jsonBytes = data.getJsonBytes();
+        if (jsonBytes == null) {
+            jsonBytes = convertJsonStringOneObject(data).getBytes(StandardCharsets.UTF_8);
+            data.setJsonBytes(jsonBytes);
+        }
+        return jsonBytes;
     }
-    public void updateDataWithPutMethod(Long id, String newTitle, String newBody) {
+    public synchronized void updateDataWithPutMethod(Long id, String newTitle, String newBody) {
 
         Optional<Data> dataOptional = findById(id);
         if (dataOptional.isPresent()) {
             Data data = dataOptional.get();
-            data.setTitle(newTitle);
+            updateTitle(data, newTitle);
+            String previousBody = data.getBody();
             data.setBody(newBody);
+            bodyIndex.index(id, previousBody, newBody);
+            data.setVersion(++dataVersion);
+            markColumnarChanged(id);
         }
     }
-    public void updateDataWithPatchMethod(Long id, String newTitle, String newBody) {
+    public synchronized void updateDataWithPatchMethod(Long id, String newTitle, String newBody) {
 
         Optional<Data> dataOptional = findById(id);
         if (dataOptional.isPresent()) {
             Data data = dataOptional.get();
             if (newTitle != null) {
-                data.setTitle(newTitle);
+                updateTitle(data, newTitle);
             }
             if (newBody != null) {
+                String previousBody = data.getBody();
                 data.setBody(newBody);
+                bodyIndex.index(id, previousBody, newBody);
             }
-
+            data.setVersion(++dataVersion);
+            markColumnarChanged(id);
         }
     }
-    public void deleteById(Long id) {
-       dataList.removeIf(data -> data.getId().equals(id));
+    public synchronized void deleteById(Long id) {
+       Data data = dataMap.remove(id);
+       if (data != null) {
+           removeTitleIndex(data);
+           bodyIndex.remove(id, data.getBody());
+           data.release();
+           dataVersion++;
+           markColumnarChanged(id);
+       }
     }
-    public String findAllByJsonString(){
-        JsonArray jsonArray = new JsonArray();
-        for (Data data : this.dataList) {
-            JsonObject jsonData = new JsonObject();
-            jsonData.addProperty("id", data.getId());
-            jsonData.addProperty("title", data.getTitle());
-            jsonData.addProperty("body", data.getBody());
-            jsonArray.add(jsonData);
+    // Snapshot 으로 전체 Data 를 교체할 때 이전 Data 의 Off-heap 공간을 반납
+    public synchronized void releaseAll() {
+        for (Data data : this.dataMap.values()) {
+            data.release();
+        }
+    }
+    public synchronized String findAllByJsonString(){
+        return new String(findAllJsonBytes(), StandardCharsets.UTF_8);
+    }
+    // 변경이 없으면 이전에 만든 byte 를 그대로 반환하고, 다시 만들 때도 Record 별로 저장해둔 Json 을 이어 붙임
+    public synchronized byte[] findAllJsonBytes(){
+        if (collectionJsonVersion == dataVersion) {
+            return collectionJsonBytes;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(collectionJsonBytes != null ? collectionJsonBytes.length : 256);
+        long pinnedEpoch = SlabStore.isEnabled() ? SlabStore.getInstance().pin() : 0L;
+        try {
+            out.write('[');
+            for (Data data : this.dataMap.values()) {
+                if (out.size() > 1) {
+                    out.write(',');
+                }
+                out.writeBytes(getJsonBytes(data));
+            }
+            out.write(']');
+        } finally {
+            if (SlabStore.isEnabled()) {
+                SlabStore.getInstance().unpin(pinnedEpoch);
+            }
+        }
+        collectionJsonBytes = out.toByteArray();
+        collectionJsonVersion = dataVersion;
+        return collectionJsonBytes;
+    }
+    // cursor 다음 id 부터 limit 개만 이어 붙이고, 뒤에 더 있으면 마지막 id 로 다음 cursor 를 만듦
+    // 응답이 maxBytes 를 넘기 전에 멈추고, 다음 Page 로 넘어갈 수 있도록 첫 Note 는 크기와 관계없이 포함
+    public synchronized byte[] findPageJsonBytes(Long afterId, int limit, int maxBytes){
+        NavigableMap<Long, Data> tail = afterId == null ? dataMap : dataMap.tailMap(afterId, false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.writeBytes("{\"notes\":[".getBytes(StandardCharsets.UTF_8));
+        Long lastId = null;
+        int count = 0;
+        for (Map.Entry<Long, Data> entry : tail.entrySet()) {
+            if (count == limit) {
+                break;
+            }
+            byte[] jsonBytes = getJsonBytes(entry.getValue());
+            if (count > 0 && out.size() + 1 + jsonBytes.length + pageSuffixLength(encodeCursor(entry.getKey())) > maxBytes) {
+                break;
+            }
+            if (count > 0) {
+                out.write(',');
+            }
+            out.writeBytes(jsonBytes);
+            lastId = entry.getKey();
+            count++;
+        }
+        String nextCursor = lastId != null && dataMap.higherKey(lastId) != null ? "\"" + encodeCursor(lastId) + "\"" : "null";
+        out.writeBytes(("],\"nextCursor\":" + nextCursor + "}").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+    // 조건을 만족하는 전체 수와 앞에서부터 limit 개의 id
+    public byte[] filterJsonBytes(NoteFilter filter, int limit){
+        long[] ids;
+        if (COLUMNAR_ENABLED) {
+            // 복사본은 바뀌지 않으므로 검사하는 동안에는 Lock 을 잡지 않음
+            ColumnarView columnarView = getColumnarView(filter);
+            ids = mergeColumnarIds(columnarView.columnarNotes().scan(filter), columnarView.changedIds(), columnarView.matchedIds());
+        } else {
+            ids = filterIds(filter);
+        }
+        StringBuilder json = new StringBuilder("{\"count\":").append(ids.length).append(",\"ids\":[");
+        for (int i = 0; i < Math.min(limit, ids.length); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(ids[i]);
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+    private synchronized long[] filterIds(NoteFilter filter){
+        return dataMap.values().stream().filter(filter::matches).mapToLong(Data::getId).toArray();
+    }
+    private void markColumnarChanged(Long id){
+        if (columnarNotes != null) {
+            columnarChangedIds.add(id);
+        }
+    }
+    // 복사본을 만든 후 변경된 Note 만 현재 Data 로 다시 확인하고, 변경이 많이 쌓였을 때만 복사본을 다시 만듦
+    private synchronized ColumnarView getColumnarView(NoteFilter filter){
+        long pinnedEpoch = SlabStore.isEnabled() ? SlabStore.getInstance().pin() : 0L;
+        try {
+            if (columnarNotes == null
+                    || columnarChangedIds.size() > Math.max(COLUMNAR_MIN_CHANGES_TO_REBUILD, dataMap.size() / 8)) {
+                columnarNotes = new ColumnarNotes(dataMap.values());
+                columnarChangedIds.clear();
+            }
+            long[] changedIds = new long[columnarChangedIds.size()];
+            long[] matchedIds = new long[columnarChangedIds.size()];
+            int changedCount = 0;
+            int matchedCount = 0;
+            for (Long id : columnarChangedIds) {
+                changedIds[changedCount++] = id;
+                Data data = dataMap.get(id);
+                if (data != null && filter.matches(data)) {
+                    matchedIds[matchedCount++] = id;
+                }
+            }
+            return new ColumnarView(columnarNotes, changedIds, Arrays.copyOf(matchedIds, matchedCount));
+        } finally {
+            if (SlabStore.isEnabled()) {
+                SlabStore.getInstance().unpin(pinnedEpoch);
+            }
+        }
+    }
+    // 세 배열 모두 id 순서이므로 복사본의 결과에서 변경된 id 를 빼고 다시 확인한 결과를 순서대로 합침
+    private static long[] mergeColumnarIds(long[] scannedIds, long[] changedIds, long[] matchedIds){
+        long[] merged = new long[scannedIds.length + matchedIds.length];
+        int count = 0;
+        int changedIndex = 0;
+        int matchedIndex = 0;
+        for (long id : scannedIds) {
+            while (changedIndex < changedIds.length && changedIds[changedIndex] < id) {
+                changedIndex++;
+            }
+            if (changedIndex < changedIds.length && changedIds[changedIndex] == id) {
+                continue;
+            }
+            while (matchedIndex < matchedIds.length && matchedIds[matchedIndex] < id) {
+                merged[count++] = matchedIds[matchedIndex++];
+            }
+            merged[count++] = id;
+        }
+        while (matchedIndex < matchedIds.length) {
+            merged[count++] = matchedIds[matchedIndex++];
+        }
+        return Arrays.copyOf(merged, count);
+    }
+    // body 의 Token 으로 찾은 점수 상위 k 개의 id 와 점수
+    public synchronized String searchByJsonString(String query, int k){
+        JsonArray results = new JsonArray();
+        for (InvertedIndex.SearchResult searchResult : bodyIndex.search(query, k)) {
+            JsonObject result = new JsonObject();
+            result.addProperty("id", searchResult.id());
+            result.addProperty("score", Math.round(searchResult.score() * 10000) / 10000.0);
+            results.add(result);
+        }
+        JsonObject response = new JsonObject();
+        response.add("results", results);
+        return response.toString();
+    }
+    // from 이상 to 미만의 title 을 title 순서로 limit 개, after 가 있으면 그 다음 Key 부터
+    public synchronized byte[] findTitlePageJsonBytes(String from, String to, TitleKey after, int limit, int maxBytes){
+        NavigableSet<TitleKey> tail = after != null ? titleIndex.tailSet(after, false)
+                : titleIndex.tailSet(new TitleKey(from, Long.MIN_VALUE), true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.writeBytes("{\"notes\":[".getBytes(StandardCharsets.UTF_8));
+        TitleKey lastKey = null;
+        int count = 0;
+        for (TitleKey titleKey : tail) {
+            if (count == limit || !isBefore(titleKey, to)) {
+                break;
+            }
+            byte[] jsonBytes = getJsonBytes(dataMap.get(titleKey.id()));
+            if (count > 0 && out.size() + 1 + jsonBytes.length + pageSuffixLength(encodeTitleCursor(titleKey)) > maxBytes) {
+                break;
+            }
+            if (count > 0) {
+                out.write(',');
+            }
+            out.writeBytes(jsonBytes);
+            lastKey = titleKey;
+            count++;
+        }
+        TitleKey nextKey = lastKey != null ? titleIndex.higher(lastKey) : null;
+        String nextCursor = nextKey != null && isBefore(nextKey, to) ? "\"" + encodeTitleCursor(lastKey) + "\"" : "null";
+        out.writeBytes(("],\"nextCursor\":" + nextCursor + "}").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+    // 마지막에 붙는 ],"nextCursor":"..."} 의 길이, cursor 는 URL-safe Base64 이므로 문자 수가 byte 수
+    private static int pageSuffixLength(String cursor) {
+        return "],\"nextCursor\":\"\"}".length() + cursor.length();
+    }
+    private boolean isBefore(TitleKey titleKey, String to) {
+        return to == null || titleKey.title().compareTo(to) < 0;
+    }
+    private void updateTitle(Data data, String newTitle) {
+        if (!Objects.equals(data.getTitle(), newTitle)) {
+            removeTitleIndex(data);
+            data.setTitle(newTitle);
+            addTitleIndex(data);
+        }
+    }
+    private void addTitleIndex(Data data) {
+        if (data.getTitle() != null) {
+            titleIndex.add(new TitleKey(data.getTitle(), data.getId()));
+        }
+    }
+    private void removeTitleIndex(Data data) {
+        if (data.getTitle() != null) {
+            titleIndex.remove(new TitleKey(data.getTitle(), data.getId()));
+        }
+    }
+    // afterId 다음 id 부터 limit 개의 id 와 Json, Streaming 응답이 조금씩 나눠서 가져갈 때 사용
+    public synchronized List<Map.Entry<Long, byte[]>> findJsonBytesAfter(Long afterId, int limit){
+        NavigableMap<Long, Data> tail = afterId == null ? dataMap : dataMap.tailMap(afterId, false);
+        List<Map.Entry<Long, byte[]>> records = new ArrayList<>(limit);
+        for (Map.Entry<Long, Data> entry : tail.entrySet()) {
+            if (records.size() == limit) {
+                break;
+            }
+            records.add(Map.entry(entry.getKey(), getJsonBytes(entry.getValue())));
+        }
+        return records;
+    }
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+    public static String encodeTitleCursor(TitleKey lastKey) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((TITLE_CURSOR_PREFIX + lastKey.id() + ":" + lastKey.title()).getBytes(StandardCharsets.UTF_8));
+    }
+    // 잘못된 cursor 이면 null
+    public static TitleKey decodeTitleCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = decoded.indexOf(':', TITLE_CURSOR_PREFIX.length());
+            if (!decoded.startsWith(TITLE_CURSOR_PREFIX) || separatorIndex == -1) {
+                return null;
+            }
+            long id = Long.parseLong(decoded.substring(TITLE_CURSOR_PREFIX.length(), separatorIndex));
+            return new TitleKey(decoded.substring(separatorIndex + 1), id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    // 잘못된 cursor 이면 null
+    public static Long decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                return null;
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
         }
-        return new Gson().toJson(jsonArray);
     }
-    public String convertJsonStringOneObject(Data data){
+    public synchronized String convertJsonStringOneObject(Data data){
         JsonObject jsonObject = new JsonObject();
         jsonObject.addProperty("id",data.getId());
         jsonObject.addProperty("title",data.getTitle());
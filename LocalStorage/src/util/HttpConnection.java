@@ -0,0 +1,213 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Connection 별로 읽은 Byte 를 모아두고 완성된 Http 요청 단위로 꺼내는 역할
+// Reactor Thread 가 append 하고 Worker Thread 가 요청을 마치므로 요청 상태 변경은 synchronized 로 처리
+public class HttpConnection {
+
+    private byte[] buffer = new byte[1024];
+    private int length = 0;
+    private boolean isKeepAlive = true;
+    private boolean isStreamChecked = false;
+    private boolean isReplicationStream = false;
+    private boolean isProcessing = false;
+    private ByteBuffer pendingResponse;
+    private boolean isCloseAfterResponse = false;
+    // 전체 조회를 Chunk 로 보내는 중이면 Reactor 가 쓸 수 있을 때마다 이어서 전송
+    private ChunkedResponse chunkedResponse;
+
+    public synchronized void append(ByteBuffer readBuffer) {
+        int readLength = readBuffer.remaining();
+        if (length + readLength > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + readLength));
+        }
+        readBuffer.get(buffer, length, readLength);
+        length += readLength;
+    }
+
+    // Primary 가 Replication 전용 Channel 로 연결한 경우 처음 4 Byte 가 Magic 값
+    public synchronized boolean isReplicationStream() {
+        if (!isStreamChecked && length >= ReplicationBatch.MAGIC.length) {
+            isStreamChecked = true;
+            isReplicationStream = Arrays.equals(buffer, 0, ReplicationBatch.MAGIC.length,
+                    ReplicationBatch.MAGIC, 0, ReplicationBatch.MAGIC.length);
+            if (isReplicationStream) {
+                consume(ReplicationBatch.MAGIC.length);
+            }
+        }
+        return isReplicationStream;
+    }
+
+    public synchronized ByteBuffer nextFrame() {
+        if (length < Integer.BYTES) {
+            return null;
+        }
+        int frameLength = ByteBuffer.wrap(buffer, 0, Integer.BYTES).getInt();
+        if (length < Integer.BYTES + frameLength) {
+            return null;
+        }
+        ByteBuffer frame = ByteBuffer.wrap(Arrays.copyOfRange(buffer, Integer.BYTES, Integer.BYTES + frameLength));
+        consume(Integer.BYTES + frameLength);
+        return frame;
+    }
+
+    // 이미 처리 중인 요청이 있으면 꺼내지 않아서 한 Connection 의 응답 순서를 유지
+    public synchronized String pollRequest() {
+        if (isProcessing) {
+            return null;
+        }
+        String request = nextRequest();
+        if (request != null) {
+            isProcessing = true;
+        }
+        return request;
+    }
+
+    public synchronized void finishRequest() {
+        isProcessing = false;
+    }
+
+    private String nextRequest() {
+        if (length == 0 || (!isStreamChecked && length < ReplicationBatch.MAGIC.length)) {
+            return null;
+        }
+        // Tcp Server 가 보내는 Json 요청은 첫 Json 값이 끝날 때까지 모은 후 하나의 요청으로 처리
+        if (!isHttpRequest(new String(buffer, 0, Math.min(length, 8), StandardCharsets.UTF_8))) {
+            int jsonEndIndex = indexOfJsonEnd();
+            if (jsonEndIndex == -1) {
+                return null;
+            }
+            String request = new String(buffer, 0, jsonEndIndex, StandardCharsets.UTF_8);
+            consume(jsonEndIndex);
+            isKeepAlive = true;
+            return request;
+        }
+        int headerEndIndex = indexOfHeaderEnd();
+        if (headerEndIndex == -1) {
+            return null;
+        }
+        String headers = new String(buffer, 0, headerEndIndex, StandardCharsets.UTF_8);
+        String[] headerLines = headers.split("\r\n");
+        boolean keepAlive = !headerLines[0].endsWith("HTTP/1.0");
+        int contentLength = 0;
+        for (String line : headerLines) {
+            int colonIndex = line.indexOf(':');
+            if (colonIndex == -1) {
+                continue;
+            }
+            String name = line.substring(0, colonIndex).trim();
+            String value = line.substring(colonIndex + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length")) {
+                // 잘못된 길이는 이 Connection 만 닫도록 호출한 쪽에 알림
+                if (!value.matches("\\d{1,9}")) {
+                    throw new IllegalArgumentException("Invalid Content-Length - " + value);
+                }
+                contentLength = Integer.parseInt(value);
+            } else if (name.equalsIgnoreCase("Connection")) {
+                keepAlive = value.equalsIgnoreCase("keep-alive") || (keepAlive && !value.equalsIgnoreCase("close"));
+            }
+        }
+        int totalLength = headerEndIndex + 4 + contentLength;
+        if (length < totalLength) {
+            return null;
+        }
+        String request = new String(buffer, 0, totalLength, StandardCharsets.UTF_8);
+        consume(totalLength);
+        isKeepAlive = keepAlive;
+        return request;
+    }
+
+    public synchronized boolean isKeepAlive() {
+        return isKeepAlive;
+    }
+
+    // Socket Buffer 가 가득 차서 다 쓰지 못한 응답은 남겨두고 쓸 수 있을 때 이어서 전송
+    public synchronized void setPendingResponse(ByteBuffer response, boolean closeAfterResponse) {
+        pendingResponse = response;
+        isCloseAfterResponse = closeAfterResponse;
+    }
+
+    public synchronized boolean hasPendingResponse() {
+        return pendingResponse != null;
+    }
+
+    // 남은 응답을 쓸 수 있는 만큼 쓰고, 모두 보냈으면 true
+    public synchronized boolean writePendingResponse(SocketChannel channel) throws IOException {
+        channel.write(pendingResponse);
+        if (pendingResponse.hasRemaining()) {
+            return false;
+        }
+        pendingResponse = null;
+        return true;
+    }
+
+    public synchronized boolean isCloseAfterResponse() {
+        return isCloseAfterResponse;
+    }
+
+    public ChunkedResponse getChunkedResponse() {
+        return chunkedResponse;
+    }
+
+    public void setChunkedResponse(ChunkedResponse chunkedResponse) {
+        this.chunkedResponse = chunkedResponse;
+    }
+
+    private void consume(int consumedLength) {
+        System.arraycopy(buffer, consumedLength, buffer, 0, length - consumedLength);
+        length -= consumedLength;
+    }
+
+    private boolean isHttpRequest(String prefix) {
+        return prefix.startsWith("GET") || prefix.startsWith("POST") || prefix.startsWith("PUT")
+                || prefix.startsWith("PATCH") || prefix.startsWith("DELETE");
+    }
+
+    // 문자열 밖의 괄호 깊이가 0 으로 돌아오는 위치의 다음 index, 아직 끝나지 않았으면 -1
+    // 객체나 배열로 시작하지 않으면 Json 요청이 아니므로 읽은 내용 전체를 넘겨서 잘못된 요청으로 처리
+    private int indexOfJsonEnd() {
+        int start = 0;
+        while (start < length && Character.isWhitespace(buffer[start])) {
+            start++;
+        }
+        if (start == length) {
+            return -1;
+        }
+        if (buffer[start] != '{' && buffer[start] != '[') {
+            return length;
+        }
+        int depth = 0;
+        boolean isInString = false;
+        for (int i = start; i < length; i++) {
+            byte current = buffer[i];
+            if (isInString) {
+                if (current == '\\') {
+                    i++;
+                } else if (current == '"') {
+                    isInString = false;
+                }
+            } else if (current == '"') {
+                isInString = true;
+            } else if (current == '{' || current == '[') {
+                depth++;
+            } else if ((current == '}' || current == ']') && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOfHeaderEnd() {
+        for (int i = 0; i + 3 < length; i++) {
+            if (buffer[i] == '\r' && buffer[i + 1] == '\n' && buffer[i + 2] == '\r' && buffer[i + 3] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,6 +1,7 @@
 package util;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import java.io.IOException;
@@ -10,6 +11,8 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
 
 public class HttpManager {
 
@@ -19,16 +22,23 @@ public class HttpManager {
 
     public static final String NOTES_URI = "/notes";
     public static final String PRIMARY_SERVER_URL = "http://localhost:5001/primary";
+    public static final String CONSISTENCY_HEADER = "X-Consistency-Level";
+    public static final String CONSISTENCY_FIELD = "consistency";
+    public static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    public static final String IF_NONE_MATCH_FIELD = "ifNoneMatch";
 
     public static RequestDto parsingJsonRequest(String request){
         JsonObject jsonObject = JsonParser.parseString(request).getAsJsonObject();
         String method = jsonObject.get("method").getAsString();
         String url = jsonObject.get("path").getAsString();
+        String consistencyLevel = jsonObject.has(CONSISTENCY_FIELD) ? jsonObject.get(CONSISTENCY_FIELD).getAsString() : null;
+        String ifNoneMatch = jsonObject.has(IF_NONE_MATCH_FIELD) ? jsonObject.get(IF_NONE_MATCH_FIELD).getAsString() : null;
+        // body 는 Note 객체이거나 /notes/bulk 의 Operation 배열
         if (jsonObject.has("body") && !jsonObject.get("body").isJsonNull()) {
-            JsonObject jsonBody = jsonObject.get("body").getAsJsonObject();
-            return new RequestDto(method,url,jsonBody.toString());
+            JsonElement jsonBody = jsonObject.get("body");
+            return new RequestDto(method,url,jsonBody.toString(),consistencyLevel,ifNoneMatch);
         }else{
-            return new RequestDto(method,url,null);
+            return new RequestDto(method,url,null,consistencyLevel,ifNoneMatch);
         }
     }
 
@@ -37,29 +47,32 @@ public class HttpManager {
         String method = requestDto.getMethod();
         String url = requestDto.getUrl();
         String body = requestDto.getBody();
+        String consistencyLevel = requestDto.getConsistencyLevel() != null ? requestDto.getConsistencyLevel() : "DEFAULT";
         Timestamp timestamp = new Timestamp(System.currentTimeMillis());
         System.out.println("["+timestamp+"] " +
-                "["+storageName+"] "+"[ Method : "+method+ ", URL : "+url+", Body : "+body+" ]"+" [Forward Request to primary]");
+                "["+storageName+"] "+"[ Method : "+method+ ", URL : "+url+", Body : "+body+", Consistency : "+consistencyLevel+" ]"+" [Forward Request to primary]");
         URI uri;
         if (method.equals("POST")){
-            uri = new URI(PRIMARY_SERVER_URL);
+            // POST /notes 는 /primary, POST /notes/bulk 는 /primary/bulk
+            uri = new URI(PRIMARY_SERVER_URL + url.substring(NOTES_URI.length()));
         }else{
             String id = url.split("/")[2];
             uri = new URI(PRIMARY_SERVER_URL+"/"+id);
         }
+        HttpRequest.Builder forwardRequestBuilder = HttpRequest.newBuilder()
+                .uri(uri)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+        if (requestDto.getConsistencyLevel() != null){
+            forwardRequestBuilder.header(CONSISTENCY_HEADER, requestDto.getConsistencyLevel());
+        }
         HttpRequest forwardRequest;
         if (method.equals("DELETE")){
-            forwardRequest = HttpRequest.newBuilder()
-                    .uri(uri)
-                    .header("Content-Type", "application/json")
-                    .header("Accept", "application/json")
+            forwardRequest = forwardRequestBuilder
                     .DELETE()
                     .build();
         }else{
-           forwardRequest = HttpRequest.newBuilder()
-                    .uri(uri)
-                    .header("Content-Type", "application/json")
-                    .header("Accept", "application/json")
+           forwardRequest = forwardRequestBuilder
                     .method(method, HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
                     .build();
         }
@@ -67,6 +80,29 @@ public class HttpManager {
         return response.body();
     }
 
+    public static boolean isValidConsistencyLevel(String consistencyLevel) {
+        return consistencyLevel == null || consistencyLevel.toUpperCase().matches("ALL|QUORUM|ONE|ASYNC");
+    }
+
+    public static Map<String, String> parseQueryParameters(String url){
+        Map<String, String> queryParameters = new HashMap<>();
+        int queryIndex = url.indexOf('?');
+        if (queryIndex == -1){
+            return queryParameters;
+        }
+        for (String parameter : url.substring(queryIndex + 1).split("&")){
+            String[] keyValue = parameter.split("=", 2);
+            // %zz 처럼 Decoding 할 수 없는 값은 빼서 검증에서 잘못된 요청으로 처리되도록 함
+            if (keyValue.length == 2){
+                try {
+                    queryParameters.put(keyValue[0], URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8));
+                } catch (IllegalArgumentException ignored) {
+                }
+            }
+        }
+        return queryParameters;
+    }
+
     public static boolean isHttpRequest(String request) {
         return request.startsWith("GET") || request.startsWith("POST") || request.startsWith("PUT")
                 || request.startsWith("PATCH") || request.startsWith("DELETE")
@@ -80,7 +116,17 @@ public class HttpManager {
         String method = requestLineParts[0];
         String url = requestLineParts[1];
         String body = getRequestBody(requestLines);
-        return new RequestDto(method,url,body);
+        String consistencyLevel = null;
+        String ifNoneMatch = null;
+        for (int i = 1; i < requestLines.length && !requestLines[i].isEmpty(); i++) {
+            if (requestLines[i].regionMatches(true, 0, CONSISTENCY_HEADER + ":", 0, CONSISTENCY_HEADER.length() + 1)) {
+                consistencyLevel = requestLines[i].substring(CONSISTENCY_HEADER.length() + 1).trim();
+            }
+            if (requestLines[i].regionMatches(true, 0, IF_NONE_MATCH_HEADER + ":", 0, IF_NONE_MATCH_HEADER.length() + 1)) {
+                ifNoneMatch = requestLines[i].substring(IF_NONE_MATCH_HEADER.length() + 1).trim();
+            }
+        }
+        return new RequestDto(method,url,body,consistencyLevel,ifNoneMatch);
     }
     private static String getRequestBody(String[] requestLines) {
         boolean bodyStarted = false;
@@ -109,13 +155,69 @@ public class HttpManager {
         }
         return null;
     }
-    public static byte[] generateHttpResponse(String jsonResponse){
+    public static byte[] generateHttpResponse(String jsonResponse, boolean isKeepAlive){
         int contentLength = jsonResponse.getBytes(StandardCharsets.UTF_8).length;
 
         String httpResponse =  "HTTP/1.1 200 OK\r\n" +
                 "Content-Type: application/json\r\n" +
                 "Content-Length: " + contentLength + "\r\n" +
+                "Connection: " + (isKeepAlive ? "keep-alive" : "close") + "\r\n" +
                 "\r\n" + jsonResponse;
         return httpResponse.getBytes(StandardCharsets.UTF_8);
     }
+
+    public static byte[] generateHttpResponse(byte[] jsonResponse, String etag, boolean isKeepAlive){
+        byte[] header = ("HTTP/1.1 200 OK\r\n" +
+                "Content-Type: application/json\r\n" +
+                "Content-Length: " + jsonResponse.length + "\r\n" +
+                "ETag: " + etag + "\r\n" +
+                "Connection: " + (isKeepAlive ? "keep-alive" : "close") + "\r\n" +
+                "\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] httpResponse = new byte[header.length + jsonResponse.length];
+        System.arraycopy(header, 0, httpResponse, 0, header.length);
+        System.arraycopy(jsonResponse, 0, httpResponse, header.length, jsonResponse.length);
+        return httpResponse;
+    }
+
+    public static byte[] generateNotModifiedResponse(String etag, boolean isKeepAlive){
+        String httpResponse = "HTTP/1.1 304 Not Modified\r\n" +
+                "ETag: " + etag + "\r\n" +
+                "Connection: " + (isKeepAlive ? "keep-alive" : "close") + "\r\n" +
+                "\r\n";
+        return httpResponse.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Json 요청은 변경이 없으면 {"status":304,"etag":..}, 있으면 {"status":200,"etag":..,"data":..} 로 응답
+    public static byte[] generateJsonConditionalResponse(byte[] jsonResponse, String etag, boolean isNotModified){
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.addProperty("status", isNotModified ? 304 : 200);
+        jsonObject.addProperty("etag", etag);
+        if (isNotModified) {
+            return jsonObject.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        String prefix = jsonObject.toString();
+        byte[] head = (prefix.substring(0, prefix.length() - 1) + ",\"data\":").getBytes(StandardCharsets.UTF_8);
+        byte[] response = new byte[head.length + jsonResponse.length + 1];
+        System.arraycopy(head, 0, response, 0, head.length);
+        System.arraycopy(jsonResponse, 0, response, head.length, jsonResponse.length);
+        response[response.length - 1] = '}';
+        return response;
+    }
+
+    // If-None-Match 는 "," 로 구분된 여러 ETag 나 * 일 수 있고, Weak 비교이므로 W/ 는 무시
+    public static boolean isETagMatched(String ifNoneMatch, String etag){
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
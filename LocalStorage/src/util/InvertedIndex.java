@@ -0,0 +1,211 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// body 를 Token 으로 나눠서 Token 별로 Note 목록(Posting List)을 가지는 Index, DataUtil 의 Lock 안에서만 사용
+// Note 를 색인할 때마다 새로운 Document 번호를 주므로 Posting List 는 항상 뒤에 추가만 하고,
+// 수정이나 삭제된 이전 Document 는 번호만 무효로 표시했다가 무효가 절반을 넘으면 한 번에 정리
+// Posting List 는 (이전 번호와의 차이, Token 수) 를 Variable Length 정수로 이어 붙인 byte 배열
+// 무효인 Document 도 정리 전까지 Posting List 에 남으므로 IDF 는 Token 별로 따로 세는 유효 Document 수로 계산
+public class InvertedIndex {
+
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final int MIN_DEAD_DOCUMENTS_TO_COMPACT = 1024;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final long DEAD = -1L;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, Integer> noteDocuments = new HashMap<>();
+    private long[] documentNoteIds = new long[64];
+    private int[] documentLengths = new int[64];
+    private int documentCount = 0;
+    private int liveDocuments = 0;
+    private long totalLength = 0;
+
+    public record SearchResult(long id, double score) { }
+
+    private static class PostingList {
+        private byte[] bytes = new byte[8];
+        private int length = 0;
+        private int lastDocument = 0;
+        private int documentCount = 0;
+        private int liveDocumentCount = 0;
+
+        private void add(int document, int frequency) {
+            if (length + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            length = writeVarInt(bytes, length, document - lastDocument);
+            length = writeVarInt(bytes, length, frequency);
+            lastDocument = document;
+            documentCount++;
+            liveDocumentCount++;
+        }
+    }
+
+    // 이미 색인된 Note 이면 previousBody 로 이전 Document 를 무효로 하고 다시 색인
+    public void index(long noteId, String previousBody, String body) {
+        remove(noteId, previousBody);
+        Map<String, Integer> frequencies = new HashMap<>();
+        int documentLength = 0;
+        for (String token : tokenize(body)) {
+            frequencies.merge(token, 1, Integer::sum);
+            documentLength++;
+        }
+        int document = documentCount++;
+        if (document == documentNoteIds.length) {
+            documentNoteIds = Arrays.copyOf(documentNoteIds, document * 2);
+            documentLengths = Arrays.copyOf(documentLengths, document * 2);
+        }
+        documentNoteIds[document] = noteId;
+        documentLengths[document] = documentLength;
+        for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+            postings.computeIfAbsent(frequency.getKey(), token -> new PostingList()).add(document, frequency.getValue());
+        }
+        noteDocuments.put(noteId, document);
+        liveDocuments++;
+        totalLength += documentLength;
+    }
+
+    // body 는 색인할 때의 body 이고, 이 body 의 Token 마다 유효 Document 수를 줄임
+    public void remove(long noteId, String body) {
+        Integer document = noteDocuments.remove(noteId);
+        if (document == null) {
+            return;
+        }
+        for (String token : new HashSet<>(tokenize(body))) {
+            PostingList postingList = postings.get(token);
+            if (postingList != null) {
+                postingList.liveDocumentCount--;
+            }
+        }
+        documentNoteIds[document] = DEAD;
+        liveDocuments--;
+        totalLength -= documentLengths[document];
+        int deadDocuments = documentCount - liveDocuments;
+        if (deadDocuments >= MIN_DEAD_DOCUMENTS_TO_COMPACT && deadDocuments > liveDocuments) {
+            compact();
+        }
+    }
+
+    // 질의 Token 의 Posting List 만 읽어서 BM25 점수가 높은 k 개를 점수 순서로 반환
+    public List<SearchResult> search(String query, int k) {
+        Map<Integer, Double> scores = new HashMap<>();
+        double averageLength = liveDocuments == 0 ? 1 : Math.max(1.0, (double) totalLength / liveDocuments);
+        for (String token : new LinkedHashSet<>(tokenize(query))) {
+            PostingList postingList = postings.get(token);
+            if (postingList == null || postingList.liveDocumentCount == 0) {
+                continue;
+            }
+            double idf = Math.log(1 + (liveDocuments - postingList.liveDocumentCount + 0.5) / (postingList.liveDocumentCount + 0.5));
+            int[] position = {0};
+            int document = 0;
+            for (int i = 0; i < postingList.documentCount; i++) {
+                document += readVarInt(postingList.bytes, position);
+                int frequency = readVarInt(postingList.bytes, position);
+                if (documentNoteIds[document] == DEAD) {
+                    continue;
+                }
+                double normalizedLength = 1 - B + B * documentLengths[document] / averageLength;
+                double score = idf * frequency * (K1 + 1) / (frequency + K1 * normalizedLength);
+                scores.merge(document, score, Double::sum);
+            }
+        }
+        PriorityQueue<SearchResult> topResults = new PriorityQueue<>(
+                (left, right) -> left.score() != right.score() ? Double.compare(left.score(), right.score()) : Long.compare(right.id(), left.id()));
+        for (Map.Entry<Integer, Double> score : scores.entrySet()) {
+            topResults.add(new SearchResult(documentNoteIds[score.getKey()], score.getValue()));
+            if (topResults.size() > k) {
+                topResults.poll();
+            }
+        }
+        List<SearchResult> results = new ArrayList<>(topResults);
+        results.sort((left, right) -> left.score() != right.score() ? Double.compare(right.score(), left.score()) : Long.compare(left.id(), right.id()));
+        return results;
+    }
+
+    // 유효한 Document 만 남기고 순서를 유지한 채 번호를 다시 매긴 후 Posting List 를 새로 만듦
+    private void compact() {
+        int[] renumbered = new int[documentCount];
+        int nextDocument = 0;
+        for (int document = 0; document < documentCount; document++) {
+            if (documentNoteIds[document] == DEAD) {
+                renumbered[document] = -1;
+                continue;
+            }
+            renumbered[document] = nextDocument;
+            documentNoteIds[nextDocument] = documentNoteIds[document];
+            documentLengths[nextDocument] = documentLengths[document];
+            noteDocuments.put(documentNoteIds[nextDocument], nextDocument);
+            nextDocument++;
+        }
+        documentCount = nextDocument;
+        postings.entrySet().removeIf(entry -> {
+            PostingList postingList = entry.getValue();
+            PostingList compacted = new PostingList();
+            int[] position = {0};
+            int document = 0;
+            for (int i = 0; i < postingList.documentCount; i++) {
+                document += readVarInt(postingList.bytes, position);
+                int frequency = readVarInt(postingList.bytes, position);
+                if (renumbered[document] != -1) {
+                    compacted.add(renumbered[document], frequency);
+                }
+            }
+            entry.setValue(compacted);
+            return compacted.documentCount == 0;
+        });
+    }
+
+    // 문자와 숫자가 이어진 부분을 소문자 Token 으로 사용
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isTokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isTokenChar && start == -1) {
+                start = i;
+            } else if (!isTokenChar && start != -1) {
+                if (i - start <= MAX_TOKEN_LENGTH) {
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static int writeVarInt(byte[] bytes, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[offset++] = (byte) value;
+        return offset;
+    }
+
+    // position[0] 을 읽은 만큼 앞으로 이동
+    private static int readVarInt(byte[] bytes, int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = bytes[position[0]++];
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+}
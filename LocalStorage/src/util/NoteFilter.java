@@ -0,0 +1,35 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+
+// GET /notes/filter 의 조건, 지정하지 않은 조건은 null 이고 모든 조건을 만족해야 함
+// 길이는 body 의 문자 수이고, contains 는 대소문자를 구분
+public record NoteFilter(String titleContains, String bodyContains, Integer minBodyLength, Integer maxBodyLength) {
+
+    public boolean matches(Data data) {
+        String title = data.getTitle();
+        String body = data.getBody();
+        int bodyLength = body == null ? 0 : body.length();
+        if (titleContains != null && (title == null || !title.contains(titleContains))) {
+            return false;
+        }
+        if (bodyContains != null && (body == null || !body.contains(bodyContains))) {
+            return false;
+        }
+        return isInBodyLength(bodyLength);
+    }
+
+    public boolean isInBodyLength(int bodyLength) {
+        return (minBodyLength == null || bodyLength >= minBodyLength)
+                && (maxBodyLength == null || bodyLength <= maxBodyLength);
+    }
+
+    // UTF-8 은 한 문자의 byte 가 다른 문자의 중간과 겹치지 않으므로 byte 로 비교해도 문자열 포함 여부와 같음
+    public byte[] titleContainsBytes() {
+        return titleContains == null ? null : titleContains.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public byte[] bodyContainsBytes() {
+        return bodyContains == null ? null : bodyContains.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,60 @@
+package util;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Binary Frame 형식 : [epoch][count] ([opcode][seq][id][title][body]) * count
+public record ReplicationBatch(long epoch, List<ReplicationOperation> operations) {
+
+    public static final byte[] MAGIC = {'R', 'P', 'L', '1'};
+
+    public static ReplicationBatch fromJson(String json) {
+        JsonObject batchObject = JsonParser.parseString(json).getAsJsonObject();
+        List<ReplicationOperation> operations = new ArrayList<>();
+        for (JsonElement element : batchObject.getAsJsonArray("operations")) {
+            operations.add(ReplicationOperation.fromJson(element.getAsJsonObject()));
+        }
+        return new ReplicationBatch(batchObject.get("epoch").getAsLong(), operations);
+    }
+
+    public static ReplicationBatch fromFrame(ByteBuffer frame) {
+        long epoch = frame.getLong();
+        int count = frame.getInt();
+        List<ReplicationOperation> operations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String method = toMethod(frame.get());
+            long sequence = frame.getLong();
+            long id = frame.getLong();
+            String title = getString(frame);
+            String body = getString(frame);
+            operations.add(new ReplicationOperation(sequence, method, id, title, body));
+        }
+        return new ReplicationBatch(epoch, operations);
+    }
+
+    private static String toMethod(byte opcode) {
+        return switch (opcode) {
+            case 1 -> "POST";
+            case 2 -> "PUT";
+            case 3 -> "PATCH";
+            case 4 -> "DELETE";
+            default -> throw new IllegalArgumentException("Unknown replication opcode - " + opcode);
+        };
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
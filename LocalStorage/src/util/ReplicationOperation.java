@@ -0,0 +1,15 @@
+package util;
+
+import com.google.gson.JsonObject;
+
+public record ReplicationOperation(long sequence, String method, Long id, String title, String body) {
+
+    public static ReplicationOperation fromJson(JsonObject operation) {
+        long sequence = operation.has("seq") ? operation.get("seq").getAsLong() : 0L;
+        String method = operation.get("method").getAsString();
+        Long id = operation.has("id") ? operation.get("id").getAsLong() : null;
+        String title = operation.has("title") ? operation.get("title").getAsString() : null;
+        String body = operation.has("body") ? operation.get("body").getAsString() : null;
+        return new ReplicationOperation(sequence, method, id, title, body);
+    }
+}
@@ -4,11 +4,23 @@ public class RequestDto {
     private String method;
     private String url;
     private String body;
+    private String consistencyLevel;
+    private String ifNoneMatch;
 
     public RequestDto(String method, String url, String body) {
+        this(method, url, body, null);
+    }
+
+    public RequestDto(String method, String url, String body, String consistencyLevel) {
         this.method = method;
         this.url = url;
         this.body = body;
+        this.consistencyLevel = consistencyLevel;
+    }
+
+    public RequestDto(String method, String url, String body, String consistencyLevel, String ifNoneMatch) {
+        this(method, url, body, consistencyLevel);
+        this.ifNoneMatch = ifNoneMatch;
     }
 
     public String getBody() {
@@ -35,4 +47,20 @@ public class RequestDto {
         this.method = method;
     }
 
+    public String getConsistencyLevel() {
+        return consistencyLevel;
+    }
+
+    public void setConsistencyLevel(String consistencyLevel) {
+        this.consistencyLevel = consistencyLevel;
+    }
+
+    public String getIfNoneMatch() {
+        return ifNoneMatch;
+    }
+
+    public void setIfNoneMatch(String ifNoneMatch) {
+        this.ifNoneMatch = ifNoneMatch;
+    }
+
 }
@@ -0,0 +1,225 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+// title, body 를 Heap 밖의 Direct ByteBuffer Slab 에 UTF-8 로 저장하고 Heap 에는 long Handle 만 남김
+// Slab 하나는 하나의 Size Class Chunk 만 담고, 반납된 Chunk 는 Size Class 별 Free List 에서 재사용
+// Chunk 는 [길이 4 byte][UTF-8 byte] 형태이고 Handle 은 (Slab 번호 << 32 | Slab 안의 Offset)
+public class SlabStore {
+
+    public static final long NULL_HANDLE = -1L;
+    private static final boolean ENABLED = Boolean.getBoolean("storage.offheap");
+    private static final int SLAB_SIZE = Integer.getInteger("storage.offheap.slabSize", 1 << 20);
+    private static final int HEADER_SIZE = 4;
+    private static final int MIN_CHUNK_SHIFT = 4;
+    private static final int MAX_CHUNK_SHIFT = 16;
+    private static final int SIZE_CLASSES = MAX_CHUNK_SHIFT - MIN_CHUNK_SHIFT + 1;
+    // 현재 Epoch, 이전 Epoch 와 다음 Epoch 의 Reader 수를 구분하기 위한 Slot 수
+    private static final int EPOCH_SLOTS = 3;
+    private static final SlabStore instance = new SlabStore();
+
+    // Reader 는 Lock 없이 배열을 읽으므로 Slab 을 추가할 때는 새로운 배열로 교체
+    private volatile ByteBuffer[] slabs = new ByteBuffer[16];
+    private int slabCount = 0;
+    // Size Class 보다 큰 값은 전용 Slab 을 사용하고, 반납된 전용 Slab 번호는 다시 사용
+    private int[] freeSlabIndexes = new int[16];
+    private int freeSlabCount = 0;
+
+    private final long[][] freeChunks = new long[SIZE_CLASSES][];
+    private final int[] freeChunkCounts = new int[SIZE_CLASSES];
+    private final int[] currentSlabs = new int[SIZE_CLASSES];
+    private final int[] currentOffsets = new int[SIZE_CLASSES];
+
+    // Reader 는 읽기 전에 현재 Epoch 에 등록하고, Epoch 은 이전 Epoch 의 Reader 가 모두 끝났을 때만 넘어감
+    // 반납된 Chunk 는 반납한 Epoch 에서 두 번 넘어간 후, 즉 반납 전에 등록한 Reader 가 모두 끝난 후 재사용
+    private final AtomicLong epoch = new AtomicLong();
+    private final AtomicIntegerArray readerCounts = new AtomicIntegerArray(EPOCH_SLOTS);
+    private long[] retiredHandles = new long[64];
+    private long[] retiredEpochs = new long[64];
+    private int retiredHead = 0;
+    private int retiredCount = 0;
+
+    private SlabStore() {
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            freeChunks[i] = new long[16];
+            currentSlabs[i] = -1;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static SlabStore getInstance() {
+        return instance;
+    }
+
+    public long store(String value) {
+        if (value == null) {
+            return NULL_HANDLE;
+        }
+        return storeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public synchronized long storeBytes(byte[] bytes) {
+        reclaimRetired();
+        int chunkSize = HEADER_SIZE + bytes.length;
+        long handle = chunkSize > (1 << MAX_CHUNK_SHIFT) ? allocateLarge(chunkSize) : allocateChunk(sizeClassOf(chunkSize));
+        ByteBuffer slab = slabs[slabIndexOf(handle)];
+        int offset = offsetOf(handle);
+        slab.putInt(offset, bytes.length);
+        slab.put(offset + HEADER_SIZE, bytes);
+        return handle;
+    }
+
+    // Absolute get 만 사용하므로 여러 Reader 가 같은 Slab 을 동시에 읽어도 됨
+    public String load(long handle) {
+        byte[] bytes = loadBytes(handle);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public byte[] loadBytes(long handle) {
+        if (handle == NULL_HANDLE) {
+            return null;
+        }
+        ByteBuffer slab = slabs[slabIndexOf(handle)];
+        int offset = offsetOf(handle);
+        byte[] bytes = new byte[slab.getInt(offset)];
+        slab.get(offset + HEADER_SIZE, bytes);
+        return bytes;
+    }
+
+    // 바로 Free List 에 넣지 않고 지금 등록된 Reader 가 모두 끝난 후 재사용
+    public synchronized void retire(long handle) {
+        if (handle == NULL_HANDLE) {
+            return;
+        }
+        if (retiredCount == retiredHandles.length) {
+            retiredHandles = unwrap(retiredHandles);
+            retiredEpochs = unwrap(retiredEpochs);
+            retiredHead = 0;
+        }
+        int tail = (retiredHead + retiredCount) % retiredHandles.length;
+        retiredHandles[tail] = handle;
+        retiredEpochs[tail] = epoch.get();
+        retiredCount++;
+    }
+
+    // Lock 없이 읽는 Reader 는 Data 를 찾기 전에 pin 하고, 읽기가 끝나면 반환받은 Epoch 으로 unpin
+    // 등록하는 사이에 Epoch 이 넘어가면 이미 지난 Epoch 에 등록한 것이므로 다시 등록
+    public long pin() {
+        while (true) {
+            long pinnedEpoch = epoch.get();
+            readerCounts.incrementAndGet(slotOf(pinnedEpoch));
+            if (epoch.get() == pinnedEpoch) {
+                return pinnedEpoch;
+            }
+            readerCounts.decrementAndGet(slotOf(pinnedEpoch));
+        }
+    }
+
+    public void unpin(long pinnedEpoch) {
+        readerCounts.decrementAndGet(slotOf(pinnedEpoch));
+    }
+
+    private void reclaimRetired() {
+        if (retiredCount == 0) {
+            return;
+        }
+        long currentEpoch = epoch.get();
+        if (readerCounts.get(slotOf(currentEpoch - 1)) == 0) {
+            currentEpoch = epoch.incrementAndGet();
+        }
+        while (retiredCount > 0 && retiredEpochs[retiredHead] + 2 <= currentEpoch) {
+            free(retiredHandles[retiredHead]);
+            retiredHead = (retiredHead + 1) % retiredHandles.length;
+            retiredCount--;
+        }
+    }
+
+    private void free(long handle) {
+        int slabIndex = slabIndexOf(handle);
+        int chunkSize = HEADER_SIZE + slabs[slabIndex].getInt(offsetOf(handle));
+        if (chunkSize > (1 << MAX_CHUNK_SHIFT)) {
+            slabs[slabIndex] = null;
+            if (freeSlabCount == freeSlabIndexes.length) {
+                freeSlabIndexes = Arrays.copyOf(freeSlabIndexes, freeSlabCount * 2);
+            }
+            freeSlabIndexes[freeSlabCount++] = slabIndex;
+            return;
+        }
+        int sizeClass = sizeClassOf(chunkSize);
+        if (freeChunkCounts[sizeClass] == freeChunks[sizeClass].length) {
+            freeChunks[sizeClass] = Arrays.copyOf(freeChunks[sizeClass], freeChunkCounts[sizeClass] * 2);
+        }
+        freeChunks[sizeClass][freeChunkCounts[sizeClass]++] = handle;
+    }
+
+    private long allocateChunk(int sizeClass) {
+        if (freeChunkCounts[sizeClass] > 0) {
+            return freeChunks[sizeClass][--freeChunkCounts[sizeClass]];
+        }
+        int chunkSize = 1 << (sizeClass + MIN_CHUNK_SHIFT);
+        int slabIndex = currentSlabs[sizeClass];
+        if (slabIndex == -1 || currentOffsets[sizeClass] + chunkSize > slabs[slabIndex].capacity()) {
+            slabIndex = addSlab(ByteBuffer.allocateDirect(Math.max(SLAB_SIZE, chunkSize)));
+            currentSlabs[sizeClass] = slabIndex;
+            currentOffsets[sizeClass] = 0;
+        }
+        int offset = currentOffsets[sizeClass];
+        currentOffsets[sizeClass] += chunkSize;
+        return handleOf(slabIndex, offset);
+    }
+
+    private long allocateLarge(int chunkSize) {
+        return handleOf(addSlab(ByteBuffer.allocateDirect(chunkSize)), 0);
+    }
+
+    private int addSlab(ByteBuffer slab) {
+        ByteBuffer[] slabs = this.slabs;
+        if (freeSlabCount > 0) {
+            int slabIndex = freeSlabIndexes[--freeSlabCount];
+            slabs[slabIndex] = slab;
+            return slabIndex;
+        }
+        if (slabCount == slabs.length) {
+            slabs = Arrays.copyOf(slabs, slabCount * 2);
+        }
+        slabs[slabCount] = slab;
+        this.slabs = slabs;
+        return slabCount++;
+    }
+
+    private long[] unwrap(long[] ring) {
+        long[] grown = new long[ring.length * 2];
+        for (int i = 0; i < retiredCount; i++) {
+            grown[i] = ring[(retiredHead + i) % ring.length];
+        }
+        return grown;
+    }
+
+    private static int slotOf(long epoch) {
+        return (int) Math.floorMod(epoch, (long) EPOCH_SLOTS);
+    }
+
+    private static int sizeClassOf(int chunkSize) {
+        int shift = 32 - Integer.numberOfLeadingZeros(chunkSize - 1);
+        return Math.max(shift, MIN_CHUNK_SHIFT) - MIN_CHUNK_SHIFT;
+    }
+
+    private static long handleOf(int slabIndex, int offset) {
+        return ((long) slabIndex << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int slabIndexOf(long handle) {
+        return (int) (handle >>> 32);
+    }
+
+    private static int offsetOf(long handle) {
+        return (int) handle;
+    }
+}
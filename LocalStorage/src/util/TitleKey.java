@@ -0,0 +1,26 @@
+package util;
+
+// title 순서로 정렬하고 같은 title 은 id 순서로 구분하는 Title Index 의 Key
+public record TitleKey(String title, long id) implements Comparable<TitleKey> {
+
+    @Override
+    public int compareTo(TitleKey other) {
+        int compared = title.compareTo(other.title);
+        return compared != 0 ? compared : Long.compare(id, other.id);
+    }
+
+    // prefix 로 시작하는 모든 title 보다 큰 가장 작은 문자열, 없으면 null
+    public static String prefixUpperBound(String prefix) {
+        StringBuilder upperBound = new StringBuilder(prefix);
+        while (!upperBound.isEmpty()) {
+            int last = upperBound.length() - 1;
+            char lastChar = upperBound.charAt(last);
+            if (lastChar != Character.MAX_VALUE) {
+                upperBound.setCharAt(last, (char) (lastChar + 1));
+                return upperBound.toString();
+            }
+            upperBound.deleteCharAt(last);
+        }
+        return null;
+    }
+}
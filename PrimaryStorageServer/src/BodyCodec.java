@@ -0,0 +1,225 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// threshold 이상인 body 를 Deflate(BEST_SPEED) 로 압축해서 저장하고, 읽을 때마다 필요한 body 만 풀어서 사용
+// 압축한 값은 [Dictionary 사용 여부 1 byte][원래 길이 4 byte][Raw Deflate] 형태
+// Dictionary 를 사용하면 처음 압축하는 body 들을 Sample 로 모아서 여러 Sample 에 반복되는 부분으로 한 번만 만듦
+// 압축한 값은 이 Process 의 Memory 에만 있으므로 Dictionary 는 Process 마다 따로 만들어도 됨
+public class BodyCodec {
+
+    private static final boolean ENABLED = Boolean.getBoolean("storage.compression");
+    private static final int THRESHOLD = Integer.getInteger("storage.compression.threshold", 256);
+    private static final boolean DICTIONARY_ENABLED = Boolean.getBoolean("storage.compression.dictionary");
+    private static final int DICTIONARY_SIZE = Integer.getInteger("storage.compression.dictionarySize", 16 * 1024);
+    private static final int SAMPLE_SIZE = DICTIONARY_SIZE * 16;
+    private static final int HEADER_SIZE = 5;
+    private static final byte NO_DICTIONARY = 0;
+    private static final byte WITH_DICTIONARY = 1;
+    // Dictionary 를 만들 때 Sample 을 나누는 구간과, 구간이 다른 Sample 에도 나오는지 비교하는 단위
+    private static final int SEGMENT_SIZE = 64;
+    private static final int SEGMENT_STRIDE = 32;
+    private static final int GRAM_SIZE = 8;
+    private static final BodyCodec instance = new BodyCodec();
+
+    private final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+    private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(() -> new Inflater(true));
+    private final List<byte[]> samples = new ArrayList<>();
+    private int sampledBytes = 0;
+    private volatile byte[] dictionary;
+
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressedCount = new LongAdder();
+    private final LongAdder incompressibleCount = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+    private final LongAdder decompressCount = new LongAdder();
+    private final LongAdder decompressNanos = new LongAdder();
+
+    private BodyCodec() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static BodyCodec getInstance() {
+        return instance;
+    }
+
+    // 압축할 필요가 없거나 압축해도 줄지 않으면 null
+    public byte[] compress(String body) {
+        // UTF-8 은 한 문자가 최대 3 byte 이므로 byte 로 바꾸지 않아도 확실히 짧은 body 는 바로 제외
+        if (body == null || body.length() * 3 < THRESHOLD) {
+            return null;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < THRESHOLD) {
+            return null;
+        }
+        long startTime = System.nanoTime();
+        byte[] dictionary = this.dictionary;
+        if (DICTIONARY_ENABLED && dictionary == null) {
+            addSample(bytes);
+        }
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(bytes);
+        deflater.finish();
+        byte[] buffer = new byte[HEADER_SIZE + bytes.length];
+        int length = HEADER_SIZE;
+        while (!deflater.finished() && length < buffer.length) {
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        compressNanos.add(System.nanoTime() - startTime);
+        rawBytes.add(bytes.length);
+        if (!deflater.finished()) {
+            incompressibleCount.increment();
+            compressedBytes.add(bytes.length);
+            return null;
+        }
+        buffer[0] = dictionary != null ? WITH_DICTIONARY : NO_DICTIONARY;
+        ByteBuffer.wrap(buffer).putInt(1, bytes.length);
+        compressedCount.increment();
+        compressedBytes.add(length);
+        return Arrays.copyOf(buffer, length);
+    }
+
+    public String decompress(byte[] compressed) {
+        long startTime = System.nanoTime();
+        byte[] bytes = new byte[ByteBuffer.wrap(compressed).getInt(1)];
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        if (compressed[0] == WITH_DICTIONARY) {
+            inflater.setDictionary(dictionary);
+        }
+        inflater.setInput(compressed, HEADER_SIZE, compressed.length - HEADER_SIZE);
+        try {
+            int length = 0;
+            while (length < bytes.length) {
+                int inflated = inflater.inflate(bytes, length, bytes.length - length);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Truncated compressed body");
+                }
+                length += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Invalid compressed body", e);
+        }
+        decompressCount.increment();
+        decompressNanos.add(System.nanoTime() - startTime);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public String report() {
+        long raw = rawBytes.sum();
+        long compressed = compressedBytes.sum();
+        long count = compressedCount.sum();
+        long decompressions = decompressCount.sum();
+        return String.format("Body compression - compressed %d, incompressible %d, ratio %.2f (%d -> %d bytes), "
+                        + "compress %.1f us/body, decompress %d times %.1f us/body, dictionary %d bytes",
+                count, incompressibleCount.sum(), compressed == 0 ? 1.0 : (double) raw / compressed, raw, compressed,
+                count + incompressibleCount.sum() == 0 ? 0.0 : compressNanos.sum() / 1000.0 / (count + incompressibleCount.sum()),
+                decompressions, decompressions == 0 ? 0.0 : decompressNanos.sum() / 1000.0 / decompressions,
+                dictionary == null ? 0 : dictionary.length);
+    }
+
+    private synchronized void addSample(byte[] bytes) {
+        if (dictionary != null) {
+            return;
+        }
+        samples.add(bytes);
+        sampledBytes += bytes.length;
+        if (sampledBytes >= SAMPLE_SIZE) {
+            dictionary = trainDictionary(samples);
+            samples.clear();
+        }
+    }
+
+    // Sample 을 겹치는 구간으로 나누고, 다른 Sample 에도 나오는 8 byte 조각을 많이 가진 구간부터 고름
+    // 이미 고른 구간에 있는 조각은 다시 점수에 넣지 않아서 같은 내용이 Dictionary 에 반복되지 않도록 함
+    // Deflate 는 가까운 위치를 더 짧게 표현하므로 점수가 높은 구간을 Dictionary 의 뒤쪽에 둠
+    private static byte[] trainDictionary(List<byte[]> samples) {
+        Map<Long, Integer> sampleFrequencies = new HashMap<>();
+        for (byte[] sample : samples) {
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i + GRAM_SIZE <= sample.length; i++) {
+                long gram = gramAt(sample, i);
+                if (seen.add(gram)) {
+                    sampleFrequencies.merge(gram, 1, Integer::sum);
+                }
+            }
+        }
+        List<long[]> segments = new ArrayList<>();
+        for (int sampleIndex = 0; sampleIndex < samples.size(); sampleIndex++) {
+            byte[] sample = samples.get(sampleIndex);
+            for (int start = 0; start + GRAM_SIZE <= sample.length; start += SEGMENT_STRIDE) {
+                int end = Math.min(start + SEGMENT_SIZE, sample.length);
+                segments.add(new long[]{score(sample, start, end, sampleFrequencies), sampleIndex, start, end});
+            }
+        }
+        segments.sort((left, right) -> Long.compare(right[0], left[0]));
+        List<long[]> selected = new ArrayList<>();
+        int dictionaryLength = 0;
+        for (long[] segment : segments) {
+            if (dictionaryLength >= DICTIONARY_SIZE || segment[0] == 0) {
+                break;
+            }
+            byte[] sample = samples.get((int) segment[1]);
+            int start = (int) segment[2];
+            int end = (int) segment[3];
+            if (score(sample, start, end, sampleFrequencies) == 0) {
+                continue;
+            }
+            for (int i = start; i + GRAM_SIZE <= end; i++) {
+                sampleFrequencies.remove(gramAt(sample, i));
+            }
+            selected.add(segment);
+            dictionaryLength += end - start;
+        }
+        byte[] dictionary = new byte[Math.min(dictionaryLength, DICTIONARY_SIZE)];
+        int position = dictionary.length;
+        for (long[] segment : selected) {
+            int length = Math.min((int) (segment[3] - segment[2]), position);
+            position -= length;
+            System.arraycopy(samples.get((int) segment[1]), (int) segment[2], dictionary, position, length);
+            if (position == 0) {
+                break;
+            }
+        }
+        return dictionary;
+    }
+
+    // 2 개 이상의 Sample 에 나오는 조각의 출현 Sample 수 합
+    private static long score(byte[] sample, int start, int end, Map<Long, Integer> sampleFrequencies) {
+        long score = 0;
+        for (int i = start; i + GRAM_SIZE <= end; i++) {
+            int frequency = sampleFrequencies.getOrDefault(gramAt(sample, i), 0);
+            if (frequency > 1) {
+                score += frequency;
+            }
+        }
+        return score;
+    }
+
+    private static long gramAt(byte[] bytes, int offset) {
+        long gram = 0;
+        for (int i = 0; i < GRAM_SIZE; i++) {
+            gram = (gram << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return gram;
+    }
+}
@@ -0,0 +1,105 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Checkpoint 형식 : [magic][version][nextId][count] ([id][title][body]) * count [crc32]
+public class Checkpoint {
+
+    private static final int MAGIC = 0x4E4F5445;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES + Integer.BYTES;
+
+    public record Content(long nextId, List<Data> dataList) { }
+
+    public static void write(Path path, long nextId, List<Data> dataList) throws IOException {
+        List<byte[]> encodedStrings = new ArrayList<>(dataList.size() * 2);
+        long size = HEADER_SIZE + Integer.BYTES;
+        for (Data data : dataList) {
+            byte[] title = data.getTitle() != null ? data.getTitle().getBytes(StandardCharsets.UTF_8) : null;
+            byte[] body = data.getBody() != null ? data.getBody().getBytes(StandardCharsets.UTF_8) : null;
+            encodedStrings.add(title);
+            encodedStrings.add(body);
+            size += Long.BYTES + Integer.BYTES * 2L
+                    + (title != null ? title.length : 0) + (body != null ? body.length : 0);
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Checkpoint is too large to map - " + size + " bytes");
+        }
+
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(nextId);
+            buffer.putInt(dataList.size());
+            for (int i = 0; i < dataList.size(); i++) {
+                buffer.putLong(dataList.get(i).getId());
+                putBytes(buffer, encodedStrings.get(i * 2));
+                putBytes(buffer, encodedStrings.get(i * 2 + 1));
+            }
+            CRC32 crc32 = new CRC32();
+            crc32.update(buffer.duplicate().flip());
+            buffer.putInt((int) crc32.getValue());
+            buffer.force();
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Content read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + Integer.BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid checkpoint size - " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc32 = new CRC32();
+            crc32.update(buffer.duplicate().limit((int) size - Integer.BYTES));
+            if ((int) crc32.getValue() != buffer.getInt((int) size - Integer.BYTES)) {
+                throw new IOException("Checkpoint checksum mismatch - " + path);
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unknown checkpoint format - " + path);
+            }
+            long nextId = buffer.getLong();
+            int count = buffer.getInt();
+            List<Data> dataList = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = buffer.getLong();
+                String title = getString(buffer);
+                String body = getString(buffer);
+                dataList.add(new Data(id, title, body));
+            }
+            return new Content(nextId, dataList);
+        }
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,28 @@
+import java.util.Locale;
+
+// Write 요청이 몇 개의 Local Storage 응답을 기다린 후 완료될지 결정
+public enum ConsistencyLevel {
+    ALL, QUORUM, ONE, ASYNC;
+
+    public static final String HEADER = "X-Consistency-Level";
+
+    public int getRequiredAcks(int replicaCount) {
+        return switch (this) {
+            case ALL -> replicaCount;
+            case QUORUM -> replicaCount == 0 ? 0 : replicaCount / 2 + 1;
+            case ONE -> Math.min(1, replicaCount);
+            case ASYNC -> 0;
+        };
+    }
+
+    public static ConsistencyLevel parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return ConsistencyLevel.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,29 +1,107 @@
 
+// 수정할 때는 새로운 Data 로 교체해서 Lock 없이 읽어도 title 과 body 가 섞이지 않도록 함
+// Snapshot 이 진행 중이면 previous 로 이전 Version 을 연결하고, 삭제는 Tombstone Version 으로 표시
+// Off-heap 모드에서는 title 과 body 를 SlabStore 에 저장하고 Handle 만 가지고 있음
+// 압축 모드에서는 긴 body 를 압축한 byte 로 가지고 있다가 getBody 를 호출할 때마다 풀어서 반환
 public class Data {
 
     private final Long id;
-    private String title;
-    private String body;
+    private final String title;
+    private final String body;
+    private final byte[] compressedBody;
+    private final boolean isBodyCompressed;
+    private final long titleHandle;
+    private final long bodyHandle;
+    private final long version;
+    // 마지막 Snapshot 이 끝나면 끊어서 이전 Version 을 반납하므로 final 이 아님
+    private volatile Data previous;
+    private final boolean isDeleted;
+    // 전체 조회 Json 을 만들 때 재사용하는 이 Version 의 Json, Version 마다 새로운 Data 이므로 무효화할 필요가 없음
+    private volatile String json;
 
     public Data(Long id, String title, String body) {
+        this(id, title, body, 0, null, false);
+    }
+
+    public Data(Long id, String title, String body, long version, Data previous, boolean isDeleted) {
         this.id = id;
-        this.title = title;
-        this.body = body;
+        byte[] compressed = BodyCodec.isEnabled() ? BodyCodec.getInstance().compress(body) : null;
+        this.isBodyCompressed = compressed != null;
+        if (SlabStore.isEnabled()) {
+            this.title = null;
+            this.body = null;
+            this.compressedBody = null;
+            this.titleHandle = SlabStore.getInstance().store(title);
+            this.bodyHandle = isBodyCompressed ? SlabStore.getInstance().storeBytes(compressed) : SlabStore.getInstance().store(body);
+        } else {
+            this.title = title;
+            this.body = isBodyCompressed ? null : body;
+            this.compressedBody = compressed;
+            this.titleHandle = SlabStore.NULL_HANDLE;
+            this.bodyHandle = SlabStore.NULL_HANDLE;
+        }
+        this.version = version;
+        this.previous = previous;
+        this.isDeleted = isDeleted;
     }
-    public String getBody() {
-        return body;
+
+    // version 시점에 보이는 가장 최신 Version, 그 시점에 없었으면 null
+    public Data findVisible(long version) {
+        Data data = this;
+        while (data != null && data.version > version) {
+            data = data.previous;
+        }
+        return data;
     }
 
-    public void setBody(String body) {
-        this.body = body;
+    // Index 에서 빠진 Version 과 그 이전 Version 들의 Off-heap 공간을 반납
+    public void release() {
+        if (!SlabStore.isEnabled()) {
+            return;
+        }
+        for (Data data = this; data != null; data = data.previous) {
+            SlabStore.getInstance().retire(data.titleHandle);
+            SlabStore.getInstance().retire(data.bodyHandle);
+        }
     }
 
-    public String getTitle() {
-        return title;
+    // 이전 Version 을 볼 Snapshot 이 없으면 연결을 끊고 Off-heap 공간을 반납
+    public void prunePrevious() {
+        Data detached = previous;
+        if (detached != null) {
+            previous = null;
+            detached.release();
+        }
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    // 압축한 body 를 Json 으로 다시 풀어서 들고 있지 않도록 압축하지 않은 Data 만 저장
+    public void setJson(String json) {
+        if (!isBodyCompressed) {
+            this.json = json;
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isDeleted() {
+        return isDeleted;
+    }
+    public String getBody() {
+        if (isBodyCompressed) {
+            byte[] compressed = SlabStore.isEnabled() ? SlabStore.getInstance().loadBytes(bodyHandle) : compressedBody;
+            return BodyCodec.getInstance().decompress(compressed);
+        }
+        return SlabStore.isEnabled() ? SlabStore.getInstance().load(bodyHandle) : body;
     }
 
-    public void setTitle(String title) {
-        this.title = title;
+    public String getTitle() {
+        return SlabStore.isEnabled() ? SlabStore.getInstance().load(titleHandle) : title;
     }
 
     public Long getId() {
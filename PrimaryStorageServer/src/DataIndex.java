@@ -0,0 +1,208 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// long id 를 Key 로 사용하는 Open Addressing(Linear Probing) Hash Index
+// Record 는 삽입 순서대로 배열에 저장하고, Table 에는 그 배열의 위치만 저장해서 전체 조회 순서를 유지
+// get 과 toList 는 변경 중에 호출돼도 예외 없이 끝나므로 Optimistic Read 후 검증하는 방식으로 사용 가능
+public class DataIndex implements Iterable<Data> {
+
+    private static final int EMPTY = -1;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] positions;
+    private int mask;
+    private Data[] records;
+    private int recordCount = 0;
+    private int size = 0;
+
+    public DataIndex() {
+        this(16);
+    }
+
+    public DataIndex(int expectedSize) {
+        int capacity = tableSizeFor(Math.max(16, (int) (expectedSize / LOAD_FACTOR) + 1));
+        keys = new long[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, EMPTY);
+        mask = capacity - 1;
+        records = new Data[Math.max(16, expectedSize)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // 변경 중에 읽으면 배열이 서로 다른 시점의 것일 수 있으므로 길이와 Probing 횟수를 모두 확인
+    public Data get(long id) {
+        long[] keys = this.keys;
+        int[] positions = this.positions;
+        Data[] records = this.records;
+        if (keys.length != positions.length) {
+            return null;
+        }
+        int mask = positions.length - 1;
+        int slot = hash(id) & mask;
+        for (int probe = 0; probe < positions.length; probe++) {
+            int position = positions[slot];
+            if (position == EMPTY) {
+                return null;
+            }
+            if (keys[slot] == id) {
+                return position < records.length ? records[position] : null;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public List<Data> toList() {
+        Data[] records = this.records;
+        int recordCount = Math.min(this.recordCount, records.length);
+        List<Data> dataList = new ArrayList<>(Math.min(size, recordCount));
+        for (int i = 0; i < recordCount; i++) {
+            if (records[i] != null) {
+                dataList.add(records[i]);
+            }
+        }
+        return dataList;
+    }
+
+    // 이미 있는 id 이면 같은 위치의 Record 를 교체
+    public void put(Data data) {
+        long id = data.getId();
+        int slot = findSlot(id);
+        if (slot != EMPTY) {
+            records[positions[slot]] = data;
+            return;
+        }
+        if (recordCount == records.length) {
+            if (size < recordCount / 2) {
+                compact();
+            } else {
+                records = Arrays.copyOf(records, records.length * 2);
+            }
+        }
+        if ((size + 1) > keys.length * LOAD_FACTOR) {
+            rehash(keys.length * 2);
+        }
+        records[recordCount] = data;
+        insertSlot(id, recordCount);
+        recordCount++;
+        size++;
+    }
+
+    public boolean remove(long id) {
+        int slot = findSlot(id);
+        if (slot == EMPTY) {
+            return false;
+        }
+        records[positions[slot]] = null;
+        deleteSlot(slot);
+        size--;
+        return true;
+    }
+
+    @Override
+    public Iterator<Data> iterator() {
+        return new Iterator<>() {
+            private int position = nextPosition(0);
+
+            @Override
+            public boolean hasNext() {
+                return position < recordCount;
+            }
+
+            @Override
+            public Data next() {
+                if (position >= recordCount) {
+                    throw new NoSuchElementException();
+                }
+                Data data = records[position];
+                position = nextPosition(position + 1);
+                return data;
+            }
+        };
+    }
+
+    private int nextPosition(int position) {
+        while (position < recordCount && records[position] == null) {
+            position++;
+        }
+        return position;
+    }
+
+    private int findSlot(long id) {
+        int slot = hash(id) & mask;
+        while (positions[slot] != EMPTY) {
+            if (keys[slot] == id) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    private void insertSlot(long id, int position) {
+        int slot = hash(id) & mask;
+        while (positions[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = id;
+        positions[slot] = position;
+    }
+
+    // Tombstone 없이 뒤에 있는 Entry 를 앞으로 당겨서 Probing 경로를 유지 (Backward Shift Deletion)
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (positions[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                positions[hole] = positions[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        positions[hole] = EMPTY;
+    }
+
+    // 삭제로 비어있는 Record 자리를 없애고 Table 의 위치를 다시 계산
+    private void compact() {
+        int position = 0;
+        for (int i = 0; i < recordCount; i++) {
+            if (records[i] != null) {
+                records[position++] = records[i];
+            }
+        }
+        Arrays.fill(records, position, recordCount, null);
+        recordCount = position;
+        rehash(keys.length);
+    }
+
+    private void rehash(int capacity) {
+        keys = new long[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, EMPTY);
+        mask = capacity - 1;
+        for (int i = 0; i < recordCount; i++) {
+            if (records[i] != null) {
+                insertSlot(records[i].getId(), i);
+            }
+        }
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        return Math.max(size, 16);
+    }
+}
@@ -1,23 +1,233 @@
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class DataStorage {
 
     private static DataStorage instance;
     private static final ReentrantLock instanceLock = new ReentrantLock();
-    private final ReentrantLock methodLock = new ReentrantLock();
-    private final List<Data> dataList;
-    private Long currentId;
+    private static final int ID_LOCK_STRIPES = 64;
+    // 같은 id 에 대한 Write 만 서로 기다리고, 다른 id 는 동시에 진행
+    private final ReentrantLock[] idLocks = new ReentrantLock[ID_LOCK_STRIPES];
+    // Write 는 read lock 을 함께 잡고, Checkpoint 는 write lock 으로 Segment 전환과 Snapshot 을 한 번에 처리
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    // Index 구조 변경은 write lock, 조회는 Optimistic Read 후 검증에 실패했을 때만 read lock
+    private final StampedLock indexLock = new StampedLock();
+    private static final Path DATA_DIRECTORY = Paths.get(System.getProperty("primary.data.dir", "./data"));
+    private static final long CHECKPOINT_INTERVAL_SECONDS = Long.getLong("primary.checkpoint.intervalSec", 60L);
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("wal-(\\d+)\\.log");
+    private static final Pattern CHECKPOINT_PATTERN = Pattern.compile("checkpoint-(\\d+)\\.snap");
+    private final DataIndex dataIndex;
+    private final AtomicLong currentId = new AtomicLong(1L);
+    private WriteAheadLog writeAheadLog;
+    private long currentGeneration;
+    private final AtomicLong recordsSinceCheckpoint = new AtomicLong(0);
+    private final ScheduledExecutorService checkpointScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    // Commit Version 은 성공한 Write 마다 1 씩 증가하고 Commit Lock 안에서 새로운 Version 과 함께 반영
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private volatile long commitVersion = 0;
+    private int activeSnapshots = 0;
+    // Snapshot 중에 이전 Version 을 연결한 Write 가 있었으면 마지막 Snapshot 이 끝날 때 끊어서 정리
+    private boolean hasVersionChains = false;
+    private final List<Long> pendingTombstones = new ArrayList<>();
+    // Commit Hook 은 Commit 순서대로 Queue 에 넣어두고, 해당 Log 의 fsync 가 끝난 후에 실행해서
+    // Primary 에 기록되지 않은 Write 가 Replica 에만 남지 않도록 함
+    private final ConcurrentLinkedQueue<PendingCommit> pendingCommits = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private long publishedVersion = 0;
+    // 마지막으로 만든 전체 조회 Json, 같은 Commit Version 의 Snapshot 이면 그대로 재사용
+    private volatile CollectionJson collectionJson = new CollectionJson(-1, null);
+
+    private record LogPosition(WriteAheadLog segment, long offset) { }
+
+    private record PendingCommit(long version, LogPosition logPosition, Runnable publication) { }
+
+    private record CollectionJson(long version, String json) { }
+
+    // 특정 Commit Version 시점의 전체 Data
+    public record Snapshot(long version, List<Data> dataList) { }
+
+    // Log 의 fsync 가 끝난 후 Commit Version 순서대로 실행됨
+    public interface CommitHook {
+        void onCommit(long version, WriteAheadLog.LogRecord logRecord);
+    }
+
+    // Bulk 의 모든 Operation 을 반영하고 마지막 Log 의 fsync 가 끝난 후 한 번 호출
+    public interface BulkCommitHook {
+        void onCommit(List<CommittedRecord> committedRecords);
+    }
+
+    public record CommittedRecord(long version, WriteAheadLog.LogRecord logRecord) { }
+
+    // type 은 WriteAheadLog 의 Record 종류, SAVE 는 id 를 사용하지 않음
+    public record BulkOperation(byte type, long id, String title, String body) { }
+
+    // SAVE 는 새로 받은 id, 없는 id 에 대한 Operation 은 isApplied 가 false
+    public record BulkResult(long id, boolean isApplied) { }
 
     private DataStorage() {
-        dataList = new ArrayList<>();
-        currentId = 1L;
+        dataIndex = new DataIndex();
+        for (int i = 0; i < ID_LOCK_STRIPES; i++) {
+            idLocks[i] = new ReentrantLock();
+        }
+        try {
+            Files.createDirectories(DATA_DIRECTORY);
+            recover();
+        } catch (IOException e) {
+            LoggingUtil.logAsync(Level.SEVERE, "Error recovering data storage: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+        checkpointScheduler.scheduleWithFixedDelay(this::checkpoint,
+                CHECKPOINT_INTERVAL_SECONDS, CHECKPOINT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // 가장 최신 Checkpoint 를 불러온 후 그 이후의 Log Segment 만 순서대로 Replay
+    private void recover() throws IOException {
+        long checkpointGeneration = 0;
+        List<Long> checkpointGenerations = listGenerations(CHECKPOINT_PATTERN);
+        Collections.reverse(checkpointGenerations);
+        for (long generation : checkpointGenerations) {
+            try {
+                Checkpoint.Content content = Checkpoint.read(checkpointPath(generation));
+                for (Data data : content.dataList()) {
+                    dataIndex.put(data);
+                }
+                currentId.set(content.nextId());
+                checkpointGeneration = generation;
+                LoggingUtil.logAsync(Level.INFO, "Loaded checkpoint " + generation + " with " + dataIndex.size() + " notes");
+                break;
+            } catch (IOException e) {
+                LoggingUtil.logAsync(Level.WARNING, "Skip invalid checkpoint " + generation + " - " + e.getMessage());
+            }
+        }
+        currentGeneration = checkpointGeneration;
+        for (long generation : listGenerations(SEGMENT_PATTERN)) {
+            if (generation < checkpointGeneration) {
+                continue;
+            }
+            if (writeAheadLog != null) {
+                writeAheadLog.close();
+            }
+            writeAheadLog = new WriteAheadLog(segmentPath(generation));
+            writeAheadLog.replay(this::replayRecord);
+            currentGeneration = generation;
+        }
+        if (writeAheadLog == null) {
+            writeAheadLog = new WriteAheadLog(segmentPath(currentGeneration));
+        }
+    }
+
+    // 새로운 Log Segment 로 전환한 후 이전 상태를 Checkpoint 로 기록하고 오래된 Segment 를 삭제
+    public void checkpoint() {
+        List<Data> snapshot;
+        long nextId;
+        long generation;
+        WriteAheadLog previousSegment;
+        long pinnedEpoch;
+        checkpointLock.writeLock().lock();
+        try {
+            if (recordsSinceCheckpoint.get() == 0) {
+                return;
+            }
+            generation = currentGeneration + 1;
+            previousSegment = writeAheadLog;
+            writeAheadLog = new WriteAheadLog(segmentPath(generation));
+            currentGeneration = generation;
+            recordsSinceCheckpoint.set(0);
+            // Data 는 변경되지 않으므로 참조만 복사
+            pinnedEpoch = pinSlabStore();
+            // Snapshot 해제가 Checkpoint Lock 없이 Tombstone 을 제거하므로 Index 는 read lock 으로 복사
+            long stamp = indexLock.readLock();
+            try{
+                snapshot = dataIndex.toList();
+            }finally {
+                indexLock.unlockRead(stamp);
+            }
+            snapshot.removeIf(Data::isDeleted);
+            nextId = currentId.get();
+        } catch (IOException e) {
+            LoggingUtil.logAsync(Level.SEVERE, "Error rolling write ahead log: " + e.getMessage());
+            return;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        try {
+            previousSegment.close();
+            Checkpoint.write(checkpointPath(generation), nextId, snapshot);
+            for (long oldGeneration : listGenerations(SEGMENT_PATTERN)) {
+                if (oldGeneration < generation) {
+                    Files.deleteIfExists(segmentPath(oldGeneration));
+                }
+            }
+            for (long oldGeneration : listGenerations(CHECKPOINT_PATTERN)) {
+                if (oldGeneration < generation) {
+                    Files.deleteIfExists(checkpointPath(oldGeneration));
+                }
+            }
+            LoggingUtil.logAsync(Level.INFO, "Checkpoint " + generation + " written with " + snapshot.size() + " notes");
+            if (BodyCodec.isEnabled()) {
+                LoggingUtil.logAsync(Level.INFO, BodyCodec.getInstance().report());
+            }
+        } catch (IOException e) {
+            LoggingUtil.logAsync(Level.SEVERE, "Error writing checkpoint: " + e.getMessage());
+        } finally {
+            unpinSlabStore(pinnedEpoch);
+        }
+    }
+
+    // Off-heap 모드에서 Lock 없이 Data 를 읽는 동안 반납된 title, body 공간이 재사용되지 않도록 함
+    // Data 를 찾기 전에 pin 하고 title, body 를 다 읽은 후 unpin
+    public long pinSlabStore() {
+        return SlabStore.isEnabled() ? SlabStore.getInstance().pin() : 0L;
+    }
+
+    public void unpinSlabStore(long pinnedEpoch) {
+        if (SlabStore.isEnabled()) {
+            SlabStore.getInstance().unpin(pinnedEpoch);
+        }
+    }
+
+    private List<Long> listGenerations(Pattern pattern) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(DATA_DIRECTORY)) {
+            for (Path file : files) {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    generations.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private Path segmentPath(long generation) {
+        return DATA_DIRECTORY.resolve("wal-" + generation + ".log");
+    }
+
+    private Path checkpointPath(long generation) {
+        return DATA_DIRECTORY.resolve("checkpoint-" + generation + ".snap");
     }
 
     public static DataStorage getInstance() {
@@ -34,81 +244,412 @@ public class DataStorage {
         return instance;
     }
 
-    public Data save(String title, String body) {
-        methodLock.lock();
+    public Data save(String title, String body, CommitHook commitHook) {
+        Data newData;
+        checkpointLock.readLock().lock();
         try{
-            Data newData = new Data(currentId++, title, body);
-            dataList.add(newData);
-            return newData;
+            long id = currentId.getAndIncrement();
+            WriteAheadLog.LogRecord logRecord = new WriteAheadLog.LogRecord(WriteAheadLog.SAVE, id, title, body);
+            newData = commit(appendLog(logRecord), logRecord, null, commitHook);
         }finally {
-            methodLock.unlock();
+            checkpointLock.readLock().unlock();
         }
-
+        publishCommits(newData.getVersion());
+        return newData;
     }
 
+    // Data 는 변경되지 않고 교체되므로 검증에 성공한 Optimistic Read 는 title 과 body 가 항상 같은 버전
     public Optional<Data> findById(Long id) {
-        return dataList.stream()
-                .filter(data -> data.getId().equals(id))
-                .findFirst();
+        return Optional.ofNullable(getIndex(id));
+    }
+
+    private Data getIndex(long id) {
+        Data data = getHead(id);
+        return data == null || data.isDeleted() ? null : data;
+    }
+
+    private Data getHead(long id) {
+        long stamp = indexLock.tryOptimisticRead();
+        Data data = dataIndex.get(id);
+        if (!indexLock.validate(stamp)) {
+            stamp = indexLock.readLock();
+            try{
+                data = dataIndex.get(id);
+            }finally {
+                indexLock.unlockRead(stamp);
+            }
+        }
+        return data;
     }
 
-    public boolean updateDataWithPutMethod(Long id, String newTitle, String newBody) {
-        methodLock.lock();
+    // 반영한 Version 의 Data 를 반환해서 호출한 쪽이 다시 조회하지 않고도 자신이 반영한 Data 로 응답하도록 함
+    public Optional<Data> updateDataWithPutMethod(Long id, String newTitle, String newBody, CommitHook commitHook) {
+        Data newData;
+        ReentrantLock idLock = getIdLock(id);
+        checkpointLock.readLock().lock();
+        idLock.lock();
         try{
-            Optional<Data> dataOptional = findById(id);
-            if (dataOptional.isPresent()) {
-                Data data = dataOptional.get();
-                data.setTitle(newTitle);
-                data.setBody(newBody);
-                return true;
-            }
-            return false;
+            Data data = getIndex(id);
+            if (data == null) {
+                return Optional.empty();
+            }
+            WriteAheadLog.LogRecord logRecord = new WriteAheadLog.LogRecord(WriteAheadLog.PUT, id, newTitle, newBody);
+            newData = commit(appendLog(logRecord), logRecord, data, commitHook);
         }finally {
-            methodLock.unlock();
+            idLock.unlock();
+            checkpointLock.readLock().unlock();
         }
+        publishCommits(newData.getVersion());
+        return Optional.of(newData);
+    }
 
+    public Optional<Data> updateDataWithPatchMethod(Long id, String newTitle, String newBody, CommitHook commitHook) {
+        Data newData;
+        ReentrantLock idLock = getIdLock(id);
+        checkpointLock.readLock().lock();
+        idLock.lock();
+        try{
+            Data data = getIndex(id);
+            if (data == null) {
+                return Optional.empty();
+            }
+            WriteAheadLog.LogRecord logRecord = new WriteAheadLog.LogRecord(WriteAheadLog.PATCH, id, newTitle, newBody);
+            newData = commit(appendLog(logRecord), logRecord, data, commitHook);
+        }finally {
+            idLock.unlock();
+            checkpointLock.readLock().unlock();
+        }
+        publishCommits(newData.getVersion());
+        return Optional.of(newData);
+    }
+
+    public boolean deleteById(Long id, CommitHook commitHook) {
+        long version;
+        ReentrantLock idLock = getIdLock(id);
+        checkpointLock.readLock().lock();
+        idLock.lock();
+        try{
+            Data data = getIndex(id);
+            if (data == null) {
+                return false;
+            }
+            WriteAheadLog.LogRecord logRecord = new WriteAheadLog.LogRecord(WriteAheadLog.DELETE, id, null, null);
+            version = commit(appendLog(logRecord), logRecord, data, commitHook).getVersion();
+        }finally {
+            idLock.unlock();
+            checkpointLock.readLock().unlock();
+        }
+        publishCommits(version);
+        return true;
     }
 
-    public boolean updateDataWithPatchMethod(Long id, String newTitle, String newBody) {
-        methodLock.lock();
+    // 모든 Operation 을 Commit Lock 을 한 번 잡은 채로 순서대로 반영하므로 다른 Write 가 중간에 끼어들지 않고,
+    // Snapshot 도 Bulk 의 전부 또는 아무것도 보지 않음
+    // 사용하는 id Lock 은 번호 순서로 모두 먼저 잡고, fsync 는 마지막 Log 위치까지 한 번만 진행
+    public List<BulkResult> bulk(List<BulkOperation> operations, BulkCommitHook bulkCommitHook) {
+        List<BulkResult> results = new ArrayList<>(operations.size());
+        List<CommittedRecord> committedRecords = new ArrayList<>(operations.size());
+        boolean[] isStripeUsed = new boolean[ID_LOCK_STRIPES];
+        for (BulkOperation operation : operations) {
+            if (operation.type() != WriteAheadLog.SAVE) {
+                isStripeUsed[(int) Math.floorMod(operation.id(), (long) ID_LOCK_STRIPES)] = true;
+            }
+        }
+        LogPosition logPosition = null;
+        checkpointLock.readLock().lock();
+        for (int stripe = 0; stripe < ID_LOCK_STRIPES; stripe++) {
+            if (isStripeUsed[stripe]) {
+                idLocks[stripe].lock();
+            }
+        }
+        commitLock.lock();
         try{
-            Optional<Data> dataOptional = findById(id);
-            if (dataOptional.isPresent()) {
-                Data data = dataOptional.get();
-                if (newTitle != null) {
-                    data.setTitle(newTitle);
+            for (BulkOperation operation : operations) {
+                long id = operation.id();
+                Data data = null;
+                if (operation.type() == WriteAheadLog.SAVE) {
+                    id = currentId.getAndIncrement();
+                } else {
+                    data = getIndex(id);
+                    if (data == null) {
+                        results.add(new BulkResult(id, false));
+                        continue;
+                    }
                 }
-                if (newBody != null) {
-                    data.setBody(newBody);
+                WriteAheadLog.LogRecord logRecord = new WriteAheadLog.LogRecord(operation.type(), id, operation.title(), operation.body());
+                logPosition = appendLog(logRecord);
+                committedRecords.add(new CommittedRecord(commit(logPosition, logRecord, data, null).getVersion(), logRecord));
+                results.add(new BulkResult(id, true));
+            }
+        }finally {
+            // 중간에 Log 기록이 실패해도 이미 Commit 한 Version 은 Replication Log 에 이어서 기록해야 다음 Write 가 진행됨
+            // Bulk 의 Record 는 모두 마지막 Log 위치 이전에 기록되므로 마지막 위치의 fsync 후 한 번에 넘김
+            if (!committedRecords.isEmpty()) {
+                pendingCommits.add(new PendingCommit(committedRecords.get(committedRecords.size() - 1).version(),
+                        logPosition, () -> bulkCommitHook.onCommit(committedRecords)));
+            }
+            commitLock.unlock();
+            for (int stripe = ID_LOCK_STRIPES - 1; stripe >= 0; stripe--) {
+                if (isStripeUsed[stripe]) {
+                    idLocks[stripe].unlock();
+                }
+            }
+            checkpointLock.readLock().unlock();
+        }
+        if (!committedRecords.isEmpty()) {
+            publishCommits(committedRecords.get(committedRecords.size() - 1).version());
+        }
+        return results;
+    }
+
+    // 진행 중인 Snapshot 이 있으면 이전 Version 을 연결해두고, 삭제는 Tombstone 으로 남겨서 Snapshot 이 계속 볼 수 있도록 함
+    // commitHook 이 null 이면 Bulk 처럼 호출한 쪽에서 Commit Lock 을 놓기 전에 직접 Queue 에 넣음
+    private Data commit(LogPosition logPosition, WriteAheadLog.LogRecord logRecord, Data current, CommitHook commitHook) {
+        commitLock.lock();
+        try{
+            long version = commitVersion + 1;
+            Data previous = activeSnapshots > 0 ? current : null;
+            Data newData = switch (logRecord.type()) {
+                case WriteAheadLog.SAVE, WriteAheadLog.PUT ->
+                        new Data(logRecord.id(), logRecord.title(), logRecord.body(), version, previous, false);
+                case WriteAheadLog.PATCH -> new Data(logRecord.id(),
+                        logRecord.title() != null ? logRecord.title() : current.getTitle(),
+                        logRecord.body() != null ? logRecord.body() : current.getBody(), version, previous, false);
+                default -> new Data(logRecord.id(), null, null, version, previous, true);
+            };
+            long stamp = indexLock.writeLock();
+            try{
+                if (newData.isDeleted() && previous == null) {
+                    dataIndex.remove(logRecord.id());
+                } else {
+                    dataIndex.put(newData);
                 }
-                return true;
+            }finally {
+                indexLock.unlockWrite(stamp);
+            }
+            if (current != null && previous == null) {
+                current.release();
+            }
+            if (newData.isDeleted() && previous != null) {
+                pendingTombstones.add(logRecord.id());
             }
-            return false;
+            if (previous != null) {
+                hasVersionChains = true;
+            }
+            commitVersion = version;
+            if (commitHook != null) {
+                pendingCommits.add(new PendingCommit(version, logPosition, () -> commitHook.onCommit(version, logRecord)));
+            }
+            return newData;
         }finally {
-            methodLock.unlock();
+            commitLock.unlock();
         }
+    }
+
+    // Snapshot 을 등록한 후 각 Record 에서 등록 시점 Version 이하의 가장 최신 Version 을 선택
+    // Version 을 고르는 동안에만 등록해두고, Json 변환은 Lock 과 등록 없이 진행
+    public Snapshot snapshot() {
+        long version;
+        commitLock.lock();
+        try{
+            version = commitVersion;
+            activeSnapshots++;
+        }finally {
+            commitLock.unlock();
+        }
+        try{
+            List<Data> dataList = new ArrayList<>();
+            for (Data head : findHeads()) {
+                Data data = head.findVisible(version);
+                if (data != null && !data.isDeleted()) {
+                    dataList.add(data);
+                }
+            }
+            return new Snapshot(version, dataList);
+        }finally {
+            releaseSnapshot();
+        }
+    }
+
+    // 마지막 Snapshot 이 끝나면 남아있는 Tombstone 을 Index 에서 제거하고
+    // 다시 Write 되지 않는 id 에도 이전 Version 이 남지 않도록 모든 Version 연결을 끊음
+    private void releaseSnapshot() {
+        commitLock.lock();
+        try{
+            activeSnapshots--;
+            if (activeSnapshots > 0 || !hasVersionChains) {
+                return;
+            }
+            long stamp = indexLock.writeLock();
+            try{
+                for (long id : pendingTombstones) {
+                    Data head = dataIndex.get(id);
+                    if (head != null && head.isDeleted()) {
+                        dataIndex.remove(id);
+                        head.release();
+                    }
+                }
+                // Commit Lock 안이므로 그 사이에 새로운 Version 이 연결되지 않음
+                for (Data head : dataIndex) {
+                    head.prunePrevious();
+                }
+            }finally {
+                indexLock.unlockWrite(stamp);
+            }
+            pendingTombstones.clear();
+            hasVersionChains = false;
+        }finally {
+            commitLock.unlock();
+        }
+    }
+
+    private List<Data> findHeads() {
+        long stamp = indexLock.tryOptimisticRead();
+        List<Data> heads = dataIndex.toList();
+        if (!indexLock.validate(stamp)) {
+            stamp = indexLock.readLock();
+            try{
+                heads = dataIndex.toList();
+            }finally {
+                indexLock.unlockRead(stamp);
+            }
+        }
+        return heads;
+    }
 
+    private ReentrantLock getIdLock(long id) {
+        return idLocks[(int) Math.floorMod(id, (long) ID_LOCK_STRIPES)];
     }
 
-    public boolean deleteById(Long id) {
-        methodLock.lock();
+    private Data patch(Data data, String newTitle, String newBody) {
+        return new Data(data.getId(),
+                newTitle != null ? newTitle : data.getTitle(),
+                newBody != null ? newBody : data.getBody());
+    }
+
+    // Log 기록은 Lock 안에서, fsync 는 Lock 밖에서 진행해서 여러 Writer 가 하나의 fsync 를 공유
+    private LogPosition appendLog(WriteAheadLog.LogRecord logRecord) {
+        try {
+            recordsSinceCheckpoint.incrementAndGet();
+            return new LogPosition(writeAheadLog, writeAheadLog.append(logRecord));
+        } catch (IOException e) {
+            LoggingUtil.logAsync(Level.SEVERE, "Error appending write ahead log: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // version 까지의 Commit 을 순서대로 fsync 한 후 Commit Hook 을 실행, 다른 Writer 의 Commit 이 앞에 있으면 함께 처리
+    // 이미 fsync 된 위치는 바로 반환되므로 대부분 Group Commit 한 번으로 끝남
+    private void publishCommits(long version) {
+        publishLock.lock();
         try{
-            return dataList.removeIf(data -> data.getId().equals(id));
+            PendingCommit pendingCommit;
+            while (publishedVersion < version && (pendingCommit = pendingCommits.peek()) != null) {
+                syncLog(pendingCommit.logPosition());
+                pendingCommits.poll();
+                publishedVersion = pendingCommit.version();
+                pendingCommit.publication().run();
+            }
         }finally {
-            methodLock.unlock();
+            publishLock.unlock();
         }
+    }
 
+    private void syncLog(LogPosition logPosition) {
+        try {
+            logPosition.segment().sync(logPosition.offset());
+        } catch (IOException e) {
+            LoggingUtil.logAsync(Level.SEVERE, "Error syncing write ahead log: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
     }
+
+    private void replayRecord(WriteAheadLog.LogRecord logRecord) {
+        recordsSinceCheckpoint.incrementAndGet();
+        switch (logRecord.type()) {
+            case WriteAheadLog.SAVE -> {
+                dataIndex.put(new Data(logRecord.id(), logRecord.title(), logRecord.body()));
+                currentId.set(Math.max(currentId.get(), logRecord.id() + 1));
+            }
+            case WriteAheadLog.PUT -> {
+                Data data = dataIndex.get(logRecord.id());
+                if (data != null) {
+                    dataIndex.put(new Data(logRecord.id(), logRecord.title(), logRecord.body()));
+                    data.release();
+                }
+            }
+            case WriteAheadLog.PATCH -> {
+                Data data = dataIndex.get(logRecord.id());
+                if (data != null) {
+                    dataIndex.put(patch(data, logRecord.title(), logRecord.body()));
+                    data.release();
+                }
+            }
+            case WriteAheadLog.DELETE -> {
+                Data data = dataIndex.get(logRecord.id());
+                if (data != null) {
+                    dataIndex.remove(logRecord.id());
+                    data.release();
+                }
+            }
+            default -> LoggingUtil.logAsync(Level.WARNING, "Unknown write ahead log record type: " + logRecord.type());
+        }
+    }
+
+    public void close() {
+        checkpointScheduler.shutdown();
+        try {
+            writeAheadLog.close();
+        } catch (IOException e) {
+            LoggingUtil.logAsync(Level.SEVERE, "Error closing write ahead log: " + e.getMessage());
+        }
+    }
+
     public String findAllByJsonString(){
-        JsonArray jsonArray = new JsonArray();
-        for (Data data : this.dataList) {
-            JsonObject jsonData = new JsonObject();
-            jsonData.addProperty("id", data.getId());
-            jsonData.addProperty("title", data.getTitle());
-            jsonData.addProperty("body", data.getBody());
-            jsonArray.add(jsonData);
-        }
-        return new Gson().toJson(jsonArray);
+        long pinnedEpoch = pinSlabStore();
+        try{
+            return convertJsonString(snapshot());
+        }finally {
+            unpinSlabStore(pinnedEpoch);
+        }
+    }
+
+    // Snapshot 의 Version 이 마지막으로 만든 Json 과 같으면 다시 직렬화하지 않음
+    public String convertJsonString(Snapshot snapshot){
+        CollectionJson cached = collectionJson;
+        if (cached.version() == snapshot.version()) {
+            return cached.json();
+        }
+        String json = convertJsonString(snapshot.dataList());
+        if (snapshot.version() > collectionJson.version()) {
+            collectionJson = new CollectionJson(snapshot.version(), json);
+        }
+        return json;
+    }
+
+    // 변경되지 않은 Record 는 Version 에 저장해둔 Json 을 이어 붙이기만 함
+    // Off-heap 모드에서는 dataList 를 만들기 전에 pin 해둔 상태에서 호출
+    public String convertJsonString(List<Data> dataList){
+        StringBuilder json = new StringBuilder("[");
+        for (Data data : dataList) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(getJson(data));
+        }
+        return json.append(']').toString();
+    }
+
+    // Off-heap 모드에서는 Heap 에 Json 을 남기지 않음
+    private String getJson(Data data) {
+        String json = data.getJson();
+        if (json == null) {
+            json = convertJsonStringOneObject(data);
+            if (!SlabStore.isEnabled()) {
+                data.setJson(json);
+            }
+        }
+        return json;
     }
     public String convertJsonStringOneObject(Data data){
         JsonObject jsonObject = new JsonObject();
@@ -0,0 +1,116 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Connection 별로 읽은 Byte 를 모아두고 완성된 Http 요청 단위로 꺼내는 역할
+// Selector Thread 가 append 하고 Worker Thread 가 요청을 꺼내므로 모든 상태 변경은 synchronized 로 처리
+public class HttpConnection {
+
+    private byte[] buffer = new byte[1024];
+    private int length = 0;
+    private boolean isKeepAlive = true;
+    private boolean isProcessing = false;
+    private ByteBuffer pendingResponse;
+    private boolean isCloseAfterResponse = false;
+
+    public synchronized void append(ByteBuffer readBuffer) {
+        int readLength = readBuffer.remaining();
+        if (length + readLength > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + readLength));
+        }
+        readBuffer.get(buffer, length, readLength);
+        length += readLength;
+    }
+
+    // 이미 처리 중인 요청이 있으면 꺼내지 않아서 한 Connection 의 응답 순서를 유지
+    public synchronized String pollRequest() {
+        if (isProcessing) {
+            return null;
+        }
+        String request = nextRequest();
+        if (request != null) {
+            isProcessing = true;
+        }
+        return request;
+    }
+
+    public synchronized void finishRequest() {
+        isProcessing = false;
+    }
+
+    private String nextRequest() {
+        int headerEndIndex = indexOfHeaderEnd();
+        if (headerEndIndex == -1) {
+            return null;
+        }
+        String headers = new String(buffer, 0, headerEndIndex, StandardCharsets.UTF_8);
+        String[] headerLines = headers.split("\r\n");
+        boolean keepAlive = !headerLines[0].endsWith("HTTP/1.0");
+        int contentLength = 0;
+        for (String line : headerLines) {
+            int colonIndex = line.indexOf(':');
+            if (colonIndex == -1) {
+                continue;
+            }
+            String name = line.substring(0, colonIndex).trim();
+            String value = line.substring(colonIndex + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length")) {
+                // 잘못된 길이는 이 Connection 만 닫도록 호출한 쪽에 알림
+                if (!value.matches("\\d{1,9}")) {
+                    throw new IllegalArgumentException("Invalid Content-Length - " + value);
+                }
+                contentLength = Integer.parseInt(value);
+            } else if (name.equalsIgnoreCase("Connection")) {
+                keepAlive = value.equalsIgnoreCase("keep-alive") || (keepAlive && !value.equalsIgnoreCase("close"));
+            }
+        }
+        int totalLength = headerEndIndex + 4 + contentLength;
+        if (length < totalLength) {
+            return null;
+        }
+        String request = new String(buffer, 0, totalLength, StandardCharsets.UTF_8);
+        System.arraycopy(buffer, totalLength, buffer, 0, length - totalLength);
+        length -= totalLength;
+        isKeepAlive = keepAlive;
+        return request;
+    }
+
+    public synchronized boolean isKeepAlive() {
+        return isKeepAlive;
+    }
+
+    // Socket Buffer 가 가득 차서 다 쓰지 못한 응답은 남겨두고 쓸 수 있을 때 이어서 전송
+    public synchronized void setPendingResponse(ByteBuffer response, boolean closeAfterResponse) {
+        pendingResponse = response;
+        isCloseAfterResponse = closeAfterResponse;
+    }
+
+    public synchronized boolean hasPendingResponse() {
+        return pendingResponse != null;
+    }
+
+    // 남은 응답을 쓸 수 있는 만큼 쓰고, 모두 보냈으면 true
+    public synchronized boolean writePendingResponse(SocketChannel channel) throws IOException {
+        channel.write(pendingResponse);
+        if (pendingResponse.hasRemaining()) {
+            return false;
+        }
+        pendingResponse = null;
+        return true;
+    }
+
+    public synchronized boolean isCloseAfterResponse() {
+        return isCloseAfterResponse;
+    }
+
+    private int indexOfHeaderEnd() {
+        for (int i = 0; i + 3 < length; i++) {
+            if (buffer[i] == '\r' && buffer[i + 1] == '\n' && buffer[i + 2] == '\r' && buffer[i + 3] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,165 @@
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+public class LocalStorageReplica {
+
+    private static final long REQUEST_TIMEOUT_MILLIS = Long.getLong("replication.timeoutMs", 1000L);
+    private static final int FAILURE_THRESHOLD = Integer.getInteger("replication.breaker.failures", 3);
+    private static final long COOLDOWN_MILLIS = Long.getLong("replication.breaker.cooldownMs", 5000L);
+    private static final long LEASE_MILLIS = Long.getLong("replication.leaseMs", 10000L);
+
+    // CLOSED : 동기 경로에 포함, OPEN : 동기 경로에서 제외, HALF_OPEN : Cooldown 후 시험 전송 중
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int port;
+    private final boolean isBinaryProtocol;
+    private CompletableFuture<String> lastRequest = CompletableFuture.completedFuture(null);
+    private ExecutorService replicationExecutor;
+    private SocketChannel replicationChannel;
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private volatile long lastSeenAt = System.currentTimeMillis();
+
+    public LocalStorageReplica(int port, boolean isBinaryProtocol) {
+        this.port = port;
+        this.isBinaryProtocol = isBinaryProtocol;
+        if (isBinaryProtocol) {
+            replicationExecutor = Executors.newSingleThreadExecutor();
+        }
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public boolean isBinaryProtocol() {
+        return isBinaryProtocol;
+    }
+
+    // OPEN 이면 전송하지 않고, Cooldown 이 지났으면 HALF_OPEN 으로 바꾸고 한 번만 시험 전송을 허용
+    public synchronized State acquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= COOLDOWN_MILLIS) {
+            state = State.HALF_OPEN;
+            return State.HALF_OPEN;
+        }
+        return state == State.CLOSED ? State.CLOSED : State.OPEN;
+    }
+
+    public void renewLease() {
+        lastSeenAt = System.currentTimeMillis();
+    }
+
+    public boolean isLeaseExpired(long now) {
+        return now - lastSeenAt > LEASE_MILLIS;
+    }
+
+    // 이전 요청이 끝난 후에 다음 요청을 보내서 Replica 별로 Write 순서를 유지
+    // 응답이 Deadline 안에 오지 않으면 실패로 처리해서 느린 Replica 가 Write 지연을 늘리지 않도록 함
+    public synchronized CompletableFuture<String> send(ReplicationBatch batch) {
+        CompletableFuture<String> nextRequest;
+        if (isBinaryProtocol) {
+            nextRequest = CompletableFuture.supplyAsync(() -> sendFrame(batch.toFrame()), replicationExecutor);
+        } else {
+            HttpRequest request;
+            try {
+                request = HttpRequest.newBuilder()
+                        .uri(new URI("http://localhost:" + port + "/backup/batch"))
+                        .timeout(Duration.ofMillis(REQUEST_TIMEOUT_MILLIS))
+                        .header("Content-Type", "application/json")
+                        .header("Accept", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(batch.toJson(), StandardCharsets.UTF_8))
+                        .build();
+            } catch (URISyntaxException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            nextRequest = lastRequest
+                    .handle((response, e) -> null)
+                    .thenCompose(ignored -> PrimaryStorage.httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                    .thenApply(HttpResponse::body);
+            lastRequest = nextRequest;
+        }
+        // 응답은 받았지만 Batch 를 적용하지 못한 Replica 는 실패로 기록해서 뒤처진 Replica 의 시험 전송이 Circuit 을 닫지 않도록 함
+        return nextRequest.copy()
+                .orTimeout(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .whenComplete((response, e) -> recordResult(e == null && batch.isAppliedBy(response)));
+    }
+
+    private synchronized void recordResult(boolean isSuccess) {
+        if (isSuccess) {
+            lastSeenAt = System.currentTimeMillis();
+            consecutiveFailures = 0;
+            if (state != State.CLOSED) {
+                LoggingUtil.logAsync(Level.INFO, "Circuit closed for port " + port);
+            }
+            state = State.CLOSED;
+            return;
+        }
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= FAILURE_THRESHOLD)) {
+            // 빠진 Operation 은 다시 연결될 때 Local Storage 가 Sequence 차이를 보고 Catch up 함
+            LoggingUtil.logAsync(Level.WARNING, "Circuit opened for port " + port + " after " + consecutiveFailures
+                    + " failures, replica will catch up on recovery");
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    // Replication 전용 Channel 로 Frame 을 보내고 Local Storage 가 적용한 마지막 Sequence 를 응답으로 받음
+    private String sendFrame(byte[] frame) {
+        try {
+            if (replicationChannel == null || !replicationChannel.isOpen()) {
+                replicationChannel = SocketChannel.open(new InetSocketAddress("localhost", port));
+                // Blocking Channel 은 Read Timeout 이 없으므로 Socket Adaptor 의 SO_TIMEOUT 으로 Ack 을 기다림
+                replicationChannel.socket().setSoTimeout((int) REQUEST_TIMEOUT_MILLIS);
+                ByteBuffer magicBuffer = ByteBuffer.wrap(ReplicationBatch.MAGIC);
+                while (magicBuffer.hasRemaining()) {
+                    replicationChannel.write(magicBuffer);
+                }
+            }
+            ByteBuffer frameBuffer = ByteBuffer.wrap(frame);
+            while (frameBuffer.hasRemaining()) {
+                replicationChannel.write(frameBuffer);
+            }
+            Socket socket = replicationChannel.socket();
+            long lastAppliedSequence = new DataInputStream(socket.getInputStream()).readLong();
+            return "{\"lastAppliedSeq\":" + lastAppliedSequence + "}";
+        } catch (IOException e) {
+            closeReplicationChannel();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeReplicationChannel() {
+        try {
+            if (replicationChannel != null) {
+                replicationChannel.close();
+            }
+        } catch (IOException ignored) {
+        }
+        replicationChannel = null;
+    }
+
+    public void close() {
+        if (replicationExecutor != null && !replicationExecutor.isShutdown()) {
+            replicationExecutor.execute(this::closeReplicationChannel);
+            replicationExecutor.shutdown();
+        }
+    }
+}
@@ -1,24 +1,34 @@
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.net.URLDecoder;
 import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
 import java.nio.charset.StandardCharsets;
-import java.sql.Timestamp;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 public class PrimaryStorage {
@@ -27,7 +37,16 @@ public class PrimaryStorage {
     private ServerSocketChannel tcpChannel;
     private boolean isRunning = true;
     private final DataStorage dataStorage = DataStorage.getInstance();
-    private final List<Integer> localStoragePorts = new ArrayList<>();
+    private final Map<Integer, LocalStorageReplica> localStorageReplicas = new ConcurrentHashMap<>();
+    private final ReplicationLog replicationLog = new ReplicationLog();
+    private final ReplicationBatcher replicationBatcher = new ReplicationBatcher(localStorageReplicas.values(), replicationLog.getEpoch());
+    private final ScheduledExecutorService leaseScheduler = Executors.newSingleThreadScheduledExecutor();
+    private static final long LEASE_CHECK_INTERVAL_MILLIS = Long.getLong("replication.leaseCheckMs", 2000L);
+    private static final int WORKER_THREADS = Integer.getInteger("primary.workers", 32);
+    // Selector Thread 는 읽기만 하고 요청 처리와 Replication 대기는 Worker Thread 에서 진행
+    private final ExecutorService requestExecutor = Executors.newFixedThreadPool(WORKER_THREADS);
+    // Worker 가 다 쓰지 못한 응답의 Connection 은 Selector Thread 에서 OP_WRITE 로 등록
+    private final Queue<SelectionKey> pendingWriteKeys = new ConcurrentLinkedQueue<>();
     public static final HttpClient httpClient = HttpClient.newBuilder()
             .version(HttpClient.Version.HTTP_1_1)
             .connectTimeout(Duration.ofSeconds(5))
@@ -48,12 +67,28 @@ public class PrimaryStorage {
         tcpChannel.bind(new InetSocketAddress(5001));
         tcpChannel.configureBlocking(false);
         tcpChannel.register(selector, SelectionKey.OP_ACCEPT);
+        leaseScheduler.scheduleAtFixedRate(this::evictExpiredReplicas,
+                LEASE_CHECK_INTERVAL_MILLIS, LEASE_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Heartbeat 도 Replication 응답도 없는 Local Storage 는 Lease 가 만료되면 Registry 에서 제거
+    private void evictExpiredReplicas() {
+        long now = System.currentTimeMillis();
+        localStorageReplicas.values().removeIf(replica -> {
+            if (!replica.isLeaseExpired(now)) {
+                return false;
+            }
+            LoggingUtil.logAsync(Level.WARNING, "Lease expired for port " + replica.getPort() + ", remove from replicas");
+            replica.close();
+            return true;
+        });
     }
 
     public void start() {
         try {
             while (isRunning) {
                 int readyChannels = selector.select(1000);
+                registerPendingWrites();
                 if (readyChannels == 0) {
                     continue;
                 }
@@ -61,17 +96,37 @@ public class PrimaryStorage {
                 while (keyIterator.hasNext()) {
                     SelectionKey key = keyIterator.next();
                     keyIterator.remove();
+                    // Worker 가 닫은 Channel 의 Key 는 건너뜀
+                    if (!key.isValid()) {
+                        continue;
+                    }
                     if (key.isAcceptable()) {
                         handleTcpConnection();
                     }
-                    if (key.isReadable()) {
+                    if (key.isValid() && key.isWritable()) {
+                        try {
+                            handleTcpWrite(key);
+                        } catch (IOException | RuntimeException e) {
+                            LoggingUtil.logAsync(Level.INFO, "Client connection error - " + e.getMessage());
+                            key.cancel();
+                            key.channel().close();
+                        }
+                    }
+                    if (key.isValid() && key.isReadable()) {
                         if (key.channel() instanceof SocketChannel) {
-                            handleTcpRequest((SocketChannel) key.channel());
+                            // 잘못된 요청으로 생긴 오류는 해당 Channel 만 닫고 Selector Loop 는 계속 진행
+                            try {
+                                handleTcpRequest(key);
+                            } catch (IOException | RuntimeException e) {
+                                LoggingUtil.logAsync(Level.INFO, "Client connection error - " + e.getMessage());
+                                key.cancel();
+                                key.channel().close();
+                            }
                         }
                     }
                 }
             }
-        } catch (IOException | InterruptedException | URISyntaxException | ExecutionException e) {
+        } catch (IOException e) {
             LoggingUtil.logAsync(Level.SEVERE,"Error during Primary Storage operation: " + e.getMessage());
         }finally {
             closePrimaryStorage();
@@ -79,105 +134,232 @@ public class PrimaryStorage {
     }
     private void handleTcpConnection() throws IOException {
         SocketChannel clientChannel = tcpChannel.accept();
+        if (clientChannel == null) {
+            return;
+        }
         clientChannel.configureBlocking(false);
-        clientChannel.register(selector, SelectionKey.OP_READ);
+        clientChannel.register(selector, SelectionKey.OP_READ, new HttpConnection());
+    }
+
+    // Keep-Alive : 응답 후에도 Connection 을 유지하고 같은 Channel 에서 다음 요청을 계속 처리
+    private void handleTcpRequest(SelectionKey key) throws IOException {
+        SocketChannel clientChannel = (SocketChannel) key.channel();
+        HttpConnection connection = (HttpConnection) key.attachment();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        int bytesRead = clientChannel.read(buffer);
+        if (bytesRead == -1) {
+            key.cancel();
+            clientChannel.close();
+            LoggingUtil.logAsync(Level.INFO, "Client connection closed.");
+            return;
+        }
+        buffer.flip();
+        connection.append(buffer);
+        dispatchNextRequest(key, connection);
+    }
+
+    private void registerPendingWrites() {
+        SelectionKey key;
+        while ((key = pendingWriteKeys.poll()) != null) {
+            if (key.isValid()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            }
+        }
     }
 
-    private synchronized void handleTcpRequest(SocketChannel clientChannel) throws IOException, InterruptedException, URISyntaxException, ExecutionException {
-        ByteBuffer buffer = ByteBuffer.allocate(1024);
-        StringBuilder requestBuilder = new StringBuilder();
+    // 남은 응답을 모두 보내면 다시 읽기로 돌아가서 이미 받아둔 다음 요청을 처리
+    private void handleTcpWrite(SelectionKey key) throws IOException {
+        SocketChannel clientChannel = (SocketChannel) key.channel();
+        HttpConnection connection = (HttpConnection) key.attachment();
+        if (!connection.writePendingResponse(clientChannel)) {
+            return;
+        }
+        if (connection.isCloseAfterResponse()) {
+            key.cancel();
+            clientChannel.close();
+            return;
+        }
+        key.interestOps(SelectionKey.OP_READ);
+        connection.finishRequest();
+        dispatchNextRequest(key, connection);
+    }
+
+    // Connection 별로 한 번에 하나의 요청만 Worker 에 넘기고, 응답 후 다음 요청을 이어서 처리
+    private void dispatchNextRequest(SelectionKey key, HttpConnection connection) {
+        SocketChannel clientChannel = (SocketChannel) key.channel();
         String request;
-        while (true) {
-            int bytesRead = clientChannel.read(buffer);
-            if (bytesRead == -1) {
+        try {
+            request = connection.pollRequest();
+        } catch (RuntimeException e) {
+            LoggingUtil.logAsync(Level.INFO, "Invalid Http request - " + e.getMessage());
+            try {
                 clientChannel.close();
-                LoggingUtil.logAsync(Level.INFO, "Client connection closed.");
-                return;
+            } catch (IOException ignored) {
             }
-            buffer.flip();
-            requestBuilder.append(new String(buffer.array(), 0, bytesRead));
-            buffer.clear();
-            request = requestBuilder.toString();
-            int headerEndIndex = request.indexOf("\r\n\r\n");
-            if (headerEndIndex != -1) {
-                String headers = request.substring(0, headerEndIndex);
-                int contentLength = 0;
-
-                for (String line : headers.split("\r\n")) {
-                    if (line.startsWith("Content-Length:")) {
-                        contentLength = Integer.parseInt(line.split(":")[1].trim());
-                        break;
-                    }
+            return;
+        }
+        if (request == null) {
+            return;
+        }
+        boolean isKeepAlive = connection.isKeepAlive();
+        requestExecutor.execute(() -> {
+            try {
+                LoggingUtil.logAsync(Level.INFO, "Received Http request\n" + request);
+                String response = handleHttpRequest(request);
+                ByteBuffer responseBuffer = ByteBuffer.wrap(generateHttpResponse(response, isKeepAlive));
+                // Socket Buffer 가 가득 차면 기다리지 않고 나머지는 Selector Thread 가 이어서 전송
+                clientChannel.write(responseBuffer);
+                if (responseBuffer.hasRemaining()) {
+                    connection.setPendingResponse(responseBuffer, !isKeepAlive);
+                    pendingWriteKeys.add(key);
+                    selector.wakeup();
+                    return;
                 }
-                int totalLength = headerEndIndex + 4 + contentLength;
-                if (request.length() >= totalLength) {
-                    LoggingUtil.logAsync(Level.INFO, "Received Http request\n" + request);
-                    break;
+                if (!isKeepAlive) {
+                    clientChannel.close();
+                    return;
                 }
+            } catch (Exception e) {
+                LoggingUtil.logAsync(Level.INFO, "Client connection error - " + e.getMessage());
+                try {
+                    clientChannel.close();
+                } catch (IOException ignored) {
+                }
+                return;
             }
-        }
+            connection.finishRequest();
+            dispatchNextRequest(key, connection);
+        });
+    }
+
+    private String handleHttpRequest(String request) throws InterruptedException {
         RequestDto requestDto = parsingHttpRequest(request);
         if (requestDto.url().startsWith("/primary/unregister")){
             int portNum = Integer.parseInt(requestDto.url().split("/")[3]);
-            localStoragePorts.remove(Integer.valueOf(portNum));
+            LocalStorageReplica replica = localStorageReplicas.remove(portNum);
+            if (replica != null){
+                replica.close();
+            }
             JsonObject jsonObject = new JsonObject();
             jsonObject.addProperty("unregister","successful");
-            ByteBuffer responseBuffer = ByteBuffer.wrap(generateHttpResponse(jsonObject.toString()));
-            clientChannel.write(responseBuffer);
-            clientChannel.close();
-            return;
+            return jsonObject.toString();
+        }
+        if (requestDto.url().startsWith("/primary/heartbeat")){
+            return handleHeartbeat(Integer.parseInt(requestDto.url().split("[/?]")[3]));
+        }
+        if (requestDto.method().equals("GET")) {
+            return fetchRequestAndCreateResponse(requestDto, null).responseMessage();
         }
-        ResponseDto responseDto = fetchRequestAndCreateResponse(requestDto);
-        ByteBuffer responseBuffer = ByteBuffer.wrap(generateHttpResponse(responseDto.responseMessage()));
-        if (!requestDto.method().equals("GET") && responseDto.isValid()) {
-            triggerAllLocalStorage(requestDto);
+        if (requestDto.method().equals("POST") && requestDto.url().equals("/primary/bulk")) {
+            return handleBulkRequest(requestDto);
         }
-        clientChannel.write(responseBuffer);
-        clientChannel.close();
+        // Replication Log 기록은 Data Storage 가 fsync 후 Commit 순서대로 진행하고, Local Storage 응답은 Lock 없이 기다림
+        // 같은 id 의 Write 는 Data Storage 의 id Lock 으로 순서를 정하고, PUT, PATCH 응답은 자신이 반영한 Version 으로 만듦
+        AtomicReference<CompletableFuture<Void>> replicationAck = new AtomicReference<>();
+        ResponseDto responseDto = fetchRequestAndCreateResponse(requestDto, (version, logRecord) ->
+                replicationAck.set(triggerAllLocalStorage(version, logRecord, requestDto.consistencyLevel())));
+        return awaitReplication(replicationAck.get(), responseDto.responseMessage());
+    }
+
+    // 요청한 Consistency Level 을 만족하지 못해도 Primary 에는 이미 반영되었고, 빠진 Local Storage 는 Catch up 으로 따라옴
+    // 이 경우 응답에 만족하지 못한 이유와 원래 결과를 함께 전달
+    private String awaitReplication(CompletableFuture<Void> replicationAck, String responseMessage) throws InterruptedException {
+        if (replicationAck == null) {
+            return responseMessage;
+        }
+        try {
+            replicationAck.get();
+            return responseMessage;
+        } catch (ExecutionException e) {
+            JsonObject jsonObject = new JsonObject();
+            jsonObject.addProperty("msg", e.getCause().getMessage());
+            jsonObject.add("result", JsonParser.parseString(responseMessage));
+            return jsonObject.toString();
+        }
+    }
+
+    // Local Storage 는 응답의 epoch 와 seq 를 보고 등록이 풀렸거나 뒤처졌으면 Catch up 을 요청
+    private String handleHeartbeat(int port){
+        LocalStorageReplica replica = localStorageReplicas.get(port);
+        if (replica != null){
+            replica.renewLease();
+        }
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.addProperty("registered", replica != null);
+        jsonObject.addProperty("epoch", replicationLog.getEpoch());
+        jsonObject.addProperty("seq", replicationLog.getLastSequence());
+        return jsonObject.toString();
     }
 
     // W3
-    private void triggerAllLocalStorage(RequestDto requestDto) throws IOException, InterruptedException, URISyntaxException {
+    // Commit Version 을 그대로 Replication Sequence 로 사용
+    private CompletableFuture<Void> triggerAllLocalStorage(long version, WriteAheadLog.LogRecord logRecord, ConsistencyLevel consistencyLevel) {
+        return replicationBatcher.submit(appendReplicationLog(version, logRecord), consistencyLevel);
+    }
 
-        String method = requestDto.method();
-        String url = requestDto.url();
-        String body = requestDto.body();
-        for(Integer port : localStoragePorts){
-            URI uri;
-            String printUri;
-            if (method.equals("POST")){
-                uri = new URI("http://localhost:" + port + "/backup");
-                printUri = "/backup";
-            }else{
-                String id = url.split("/")[2];
-                uri = new URI("http://localhost:" + port + "/backup"+"/"+id);
-                printUri = "/backup/"+id;
+    private ReplicationOperation appendReplicationLog(long version, WriteAheadLog.LogRecord logRecord) {
+        String method = switch (logRecord.type()) {
+            case WriteAheadLog.SAVE -> "POST";
+            case WriteAheadLog.PUT -> "PUT";
+            case WriteAheadLog.PATCH -> "PATCH";
+            default -> "DELETE";
+        };
+        return replicationLog.append(version, method, logRecord.id(), logRecord.title(), logRecord.body());
+    }
+
+    // [{"op":"create","title","body"}, {"op":"update" 또는 "patch","id","title","body"}, {"op":"delete","id"}]
+    // 모든 Operation 을 하나의 Commit 으로 반영하고 Replication 도 하나의 Batch 로 보낸 후 Operation 순서대로 결과를 응답
+    private String handleBulkRequest(RequestDto requestDto) throws InterruptedException {
+        List<DataStorage.BulkOperation> operations = new ArrayList<>();
+        try {
+            for (JsonElement element : JsonParser.parseString(requestDto.body()).getAsJsonArray()) {
+                operations.add(toBulkOperation(element.getAsJsonObject()));
             }
-            HttpRequest request;
-            if (method.equals("DELETE")){
-                request = HttpRequest.newBuilder()
-                        .uri(uri)
-                        .header("Content-Type", "application/json")
-                        .header("Accept", "application/json")
-                        .DELETE()
-                        .build();
-            }else{
-                request = HttpRequest.newBuilder()
-                        .uri(uri)
-                        .header("Content-Type", "application/json")
-                        .header("Accept", "application/json")
-                        .method(method, HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
-                        .build();
+        } catch (RuntimeException e) {
+            JsonObject urlErrObject = new JsonObject();
+            urlErrObject.addProperty("msg","Not valid Request header or body. Try Again!");
+            return urlErrObject.toString();
+        }
+        AtomicReference<CompletableFuture<Void>> replicationAck = new AtomicReference<>();
+        List<DataStorage.BulkResult> results = dataStorage.bulk(operations, committedRecords -> {
+            List<ReplicationOperation> replicationOperations = new ArrayList<>(committedRecords.size());
+            for (DataStorage.CommittedRecord committedRecord : committedRecords) {
+                replicationOperations.add(appendReplicationLog(committedRecord.version(), committedRecord.logRecord()));
             }
-            Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-            System.out.println("["+timestamp+"] " +
-                    "[PRIMARY_SERVER] "+"[ Method : "+method+ ", URL : "+printUri+", Body : "+body+" ]"+" [Tell backups to update]");
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            LoggingUtil.logAsync(Level.INFO,"Server Awk Message - "+response);
+            replicationAck.set(replicationBatcher.submitAll(replicationOperations, requestDto.consistencyLevel()));
+        });
+        JsonArray resultArray = new JsonArray();
+        for (int i = 0; i < results.size(); i++) {
+            JsonObject result = new JsonObject();
+            result.addProperty("op", switch (operations.get(i).type()) {
+                case WriteAheadLog.SAVE -> "create";
+                case WriteAheadLog.PUT -> "update";
+                case WriteAheadLog.PATCH -> "patch";
+                default -> "delete";
+            });
+            result.addProperty("id", results.get(i).id());
+            result.addProperty("msg", results.get(i).isApplied() ? "OK" : "Not exist id");
+            resultArray.add(result);
         }
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.add("results", resultArray);
+        return awaitReplication(replicationAck.get(), jsonObject.toString());
+    }
+
+    private DataStorage.BulkOperation toBulkOperation(JsonObject jsonObject) {
+        String title = jsonObject.has("title") ? jsonObject.get("title").getAsString() : null;
+        String body = jsonObject.has("body") ? jsonObject.get("body").getAsString() : null;
+        return switch (jsonObject.get("op").getAsString()) {
+            case "create" -> new DataStorage.BulkOperation(WriteAheadLog.SAVE, 0L,
+                    Objects.requireNonNull(title), Objects.requireNonNull(body));
+            case "update" -> new DataStorage.BulkOperation(WriteAheadLog.PUT, jsonObject.get("id").getAsLong(), title, body);
+            case "patch" -> new DataStorage.BulkOperation(WriteAheadLog.PATCH, jsonObject.get("id").getAsLong(), title, body);
+            case "delete" -> new DataStorage.BulkOperation(WriteAheadLog.DELETE, jsonObject.get("id").getAsLong(), null, null);
+            default -> throw new IllegalArgumentException("Unknown bulk operation");
+        };
     }
 
-    private ResponseDto fetchRequestAndCreateResponse(RequestDto requestDto){
+    private ResponseDto fetchRequestAndCreateResponse(RequestDto requestDto, DataStorage.CommitHook commitHook){
         String method = requestDto.method();
         String url = requestDto.url();
         String requestBody = requestDto.body();
@@ -189,45 +371,40 @@ public class PrimaryStorage {
         JsonObject urlErrObject = new JsonObject();
         urlErrObject.addProperty("msg","Not valid Request header or body. Try Again!");
 
-        if (method.equals("GET") && url.matches("/primary/\\d+")){
-            int localStoragePort = Integer.parseInt(url.split("/")[2]);
-            if (!localStoragePorts.contains(localStoragePort)) {
-                localStoragePorts.add(localStoragePort);
-            }
-            return new ResponseDto(dataStorage.findAllByJsonString(),true);
+        if (method.equals("GET") && url.matches("/primary/\\d+(\\?.*)?")){
+            Map<String, String> queryParameters = parseQueryParameters(url);
+            int localStoragePort = Integer.parseInt(url.split("[/?]")[2]);
+            registerLocalStorage(localStoragePort, "binary".equals(queryParameters.get("protocol")));
+            return new ResponseDto(createReplicationResponse(queryParameters),true);
         }
         if (method.equals("POST") && url.equals("/primary")){
             JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
             String title = jsonObject.get("title").getAsString();
             String body = jsonObject.get("body").getAsString();
-            Data newData = dataStorage.save(title,body);
-            return new ResponseDto(dataStorage.convertJsonStringOneObject(newData),true);
+            // 응답을 만들기 전에 새로운 Data 가 다른 요청으로 교체되어도 공간이 재사용되지 않도록 저장 전에 pin
+            long pinnedEpoch = dataStorage.pinSlabStore();
+            try{
+                Data newData = dataStorage.save(title,body,commitHook);
+                return new ResponseDto(dataStorage.convertJsonStringOneObject(newData),true);
+            }finally {
+                dataStorage.unpinSlabStore(pinnedEpoch);
+            }
         }
         Long noteId = Long.parseLong(url.split("/")[2]);
         if (method.equals("PUT") && url.matches("/primary/\\d+")){
             JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
             String title = jsonObject.has("title") ? jsonObject.get("title").getAsString() : null;
             String body = jsonObject.has("body") ? jsonObject.get("body").getAsString() : null;
-            if (dataStorage.updateDataWithPutMethod(noteId,title,body)){
-                Optional<Data> targetData = dataStorage.findById(noteId);
-                return targetData.map(data -> new ResponseDto(dataStorage.convertJsonStringOneObject(data), true))
-                        .orElseGet(() -> new ResponseDto(errObject.toString(), false));
-            }
-            return new ResponseDto(errObject.toString(),false);
+            return updateAndCreateResponse(() -> dataStorage.updateDataWithPutMethod(noteId,title,body,commitHook), errObject);
         }
         if (method.equals("PATCH") && url.matches("/primary/\\d+")){
             JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
             String title = jsonObject.has("title") ? jsonObject.get("title").getAsString() : null;
             String body = jsonObject.has("body") ? jsonObject.get("body").getAsString() : null;
-            if (dataStorage.updateDataWithPatchMethod(noteId,title,body)){
-                Optional<Data> targetData = dataStorage.findById(noteId);
-                return targetData.map(data -> new ResponseDto(dataStorage.convertJsonStringOneObject(data), true))
-                        .orElseGet(() -> new ResponseDto(errObject.toString(), false));
-            }
-            return new ResponseDto(errObject.toString(),false);
+            return updateAndCreateResponse(() -> dataStorage.updateDataWithPatchMethod(noteId,title,body,commitHook), errObject);
         }
         if (method.equals("DELETE") && url.matches("/primary/\\d+")){
-            if (dataStorage.deleteById(noteId)){
+            if (dataStorage.deleteById(noteId,commitHook)){
                 return new ResponseDto( successObject.toString(),true);
             }
             return new ResponseDto(errObject.toString(),false);
@@ -235,6 +412,73 @@ public class PrimaryStorage {
         return new ResponseDto(urlErrObject.toString(),false);
     }
 
+    // 응답을 만들기 전에 반영한 Data 가 다른 요청으로 교체되어도 공간이 재사용되지 않도록 반영 전에 pin
+    private ResponseDto updateAndCreateResponse(Supplier<Optional<Data>> update, JsonObject errObject){
+        long pinnedEpoch = dataStorage.pinSlabStore();
+        try{
+            return update.get().map(data -> new ResponseDto(dataStorage.convertJsonStringOneObject(data), true))
+                    .orElseGet(() -> new ResponseDto(errObject.toString(), false));
+        }finally {
+            dataStorage.unpinSlabStore(pinnedEpoch);
+        }
+    }
+
+    // 재등록 시 Protocol 이 바뀌었으면 새로운 Replica 로 교체
+    private void registerLocalStorage(int port, boolean isBinaryProtocol){
+        localStorageReplicas.compute(port, (key, replica) -> {
+            if (replica != null && replica.isBinaryProtocol() == isBinaryProtocol){
+                replica.renewLease();
+                return replica;
+            }
+            if (replica != null){
+                replica.close();
+            }
+            return new LocalStorageReplica(port, isBinaryProtocol);
+        });
+    }
+
+    // epoch 와 since 가 유효하면 그 이후의 Operation 만, 아니면 전체 Snapshot 을 전달
+    private String createReplicationResponse(Map<String, String> queryParameters){
+        long epoch = replicationLog.getEpoch();
+        String requestEpoch = queryParameters.get("epoch");
+        String since = queryParameters.get("since");
+        if (requestEpoch != null && since != null && requestEpoch.equals(String.valueOf(epoch))){
+            long lastSequence = replicationLog.getLastSequence();
+            Optional<List<ReplicationOperation>> operations = replicationLog.findSince(Long.parseLong(since));
+            if (operations.isPresent()){
+                JsonArray operationArray = new JsonArray();
+                for (ReplicationOperation operation : operations.get()){
+                    operationArray.add(operation.toJson());
+                }
+                LoggingUtil.logAsync(Level.INFO, "Send " + operationArray.size() + " operations since " + since);
+                return "{\"epoch\":" + epoch + ",\"seq\":" + lastSequence + ",\"operations\":" + operationArray + "}";
+            }
+        }
+        // Write 를 멈추지 않고 Snapshot Version 시점의 Data 를 전달, Local Storage 는 이 Version 이후부터 Replication 을 이어받음
+        long pinnedEpoch = dataStorage.pinSlabStore();
+        try{
+            DataStorage.Snapshot snapshot = dataStorage.snapshot();
+            return "{\"epoch\":" + epoch + ",\"seq\":" + snapshot.version() + ",\"snapshot\":" + dataStorage.convertJsonString(snapshot) + "}";
+        }finally {
+            dataStorage.unpinSlabStore(pinnedEpoch);
+        }
+    }
+
+    private Map<String, String> parseQueryParameters(String url){
+        Map<String, String> queryParameters = new HashMap<>();
+        int queryIndex = url.indexOf('?');
+        if (queryIndex == -1){
+            return queryParameters;
+        }
+        for (String parameter : url.substring(queryIndex + 1).split("&")){
+            String[] keyValue = parameter.split("=", 2);
+            if (keyValue.length == 2){
+                queryParameters.put(keyValue[0], URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8));
+            }
+        }
+        return queryParameters;
+    }
+
     public RequestDto parsingHttpRequest(String request){
         String[] requestLines = request.split("\r\n");
         String[] requestLineParts = requestLines[0].split(" ");
@@ -242,7 +486,13 @@ public class PrimaryStorage {
         String method = requestLineParts[0];
         String url = requestLineParts[1];
         String body = getRequestBody(requestLines);
-        return new RequestDto(method,url,body);
+        ConsistencyLevel consistencyLevel = null;
+        for (int i = 1; i < requestLines.length && !requestLines[i].isEmpty(); i++) {
+            if (requestLines[i].regionMatches(true, 0, ConsistencyLevel.HEADER + ":", 0, ConsistencyLevel.HEADER.length() + 1)) {
+                consistencyLevel = ConsistencyLevel.parse(requestLines[i].substring(ConsistencyLevel.HEADER.length() + 1));
+            }
+        }
+        return new RequestDto(method,url,body,consistencyLevel);
     }
     private String getRequestBody(String[] requestLines) {
         boolean bodyStarted = false;
@@ -271,12 +521,13 @@ public class PrimaryStorage {
         }
         return null;
     }
-    private byte[] generateHttpResponse(String jsonResponse){
+    private byte[] generateHttpResponse(String jsonResponse, boolean isKeepAlive){
         int contentLength = jsonResponse.getBytes(StandardCharsets.UTF_8).length;
 
         String httpResponse =  "HTTP/1.1 200 OK\r\n" +
                 "Content-Type: application/json\r\n" +
                 "Content-Length: " + contentLength + "\r\n" +
+                "Connection: " + (isKeepAlive ? "keep-alive" : "close") + "\r\n" +
                 "\r\n" + jsonResponse;
         return httpResponse.getBytes(StandardCharsets.UTF_8);
     }
@@ -288,6 +539,10 @@ public class PrimaryStorage {
                 return;
             }
             isRunning = false;
+            leaseScheduler.shutdown();
+            requestExecutor.shutdown();
+            replicationBatcher.close();
+            dataStorage.close();
             if (selector != null && selector.isOpen()) {
                 selector.close();
             }
@@ -0,0 +1,112 @@
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Binary Frame 형식 : [length][epoch][count] ([opcode][seq][id][title][body]) * count
+public class ReplicationBatch {
+
+    public static final byte[] MAGIC = {'R', 'P', 'L', '1'};
+    public static final byte POST = 1;
+    public static final byte PUT = 2;
+    public static final byte PATCH = 3;
+    public static final byte DELETE = 4;
+
+    private final long epoch;
+    private final List<ReplicationOperation> operations;
+    private String json;
+    private byte[] frame;
+
+    public ReplicationBatch(long epoch, List<ReplicationOperation> operations) {
+        this.epoch = epoch;
+        this.operations = operations;
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public long getLastSequence() {
+        long lastSequence = 0;
+        for (ReplicationOperation operation : operations) {
+            lastSequence = Math.max(lastSequence, operation.sequence());
+        }
+        return lastSequence;
+    }
+
+    // Epoch 이 다르거나 Sequence 가 비어서 Catch up 을 기다리는 Local Storage 도 응답은 보내므로
+    // 응답한 lastAppliedSeq 가 이 Batch 의 마지막 Sequence 이상일 때만 적용된 것으로 봄
+    public boolean isAppliedBy(String ackResponse) {
+        try {
+            JsonObject ackObject = JsonParser.parseString(ackResponse).getAsJsonObject();
+            return ackObject.has("lastAppliedSeq") && ackObject.get("lastAppliedSeq").getAsLong() >= getLastSequence();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    public synchronized String toJson() {
+        if (json == null) {
+            JsonArray operationArray = new JsonArray();
+            for (ReplicationOperation operation : operations) {
+                operationArray.add(operation.toJson());
+            }
+            JsonObject batchObject = new JsonObject();
+            batchObject.addProperty("epoch", epoch);
+            batchObject.add("operations", operationArray);
+            json = batchObject.toString();
+        }
+        return json;
+    }
+
+    public synchronized byte[] toFrame() {
+        if (frame == null) {
+            byte[][] encodedStrings = new byte[operations.size() * 2][];
+            int payloadLength = Long.BYTES + Integer.BYTES;
+            for (int i = 0; i < operations.size(); i++) {
+                ReplicationOperation operation = operations.get(i);
+                encodedStrings[i * 2] = operation.title() != null ? operation.title().getBytes(StandardCharsets.UTF_8) : null;
+                encodedStrings[i * 2 + 1] = operation.body() != null ? operation.body().getBytes(StandardCharsets.UTF_8) : null;
+                payloadLength += Byte.BYTES + Long.BYTES * 2 + Integer.BYTES * 2
+                        + (encodedStrings[i * 2] != null ? encodedStrings[i * 2].length : 0)
+                        + (encodedStrings[i * 2 + 1] != null ? encodedStrings[i * 2 + 1].length : 0);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + payloadLength);
+            buffer.putInt(payloadLength);
+            buffer.putLong(epoch);
+            buffer.putInt(operations.size());
+            for (int i = 0; i < operations.size(); i++) {
+                ReplicationOperation operation = operations.get(i);
+                buffer.put(toOpcode(operation.method()));
+                buffer.putLong(operation.sequence());
+                buffer.putLong(operation.id());
+                putBytes(buffer, encodedStrings[i * 2]);
+                putBytes(buffer, encodedStrings[i * 2 + 1]);
+            }
+            frame = buffer.array();
+        }
+        return frame;
+    }
+
+    private byte toOpcode(String method) {
+        return switch (method) {
+            case "POST" -> POST;
+            case "PUT" -> PUT;
+            case "PATCH" -> PATCH;
+            case "DELETE" -> DELETE;
+            default -> throw new IllegalArgumentException("Unknown replication method - " + method);
+        };
+    }
+
+    private void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+}
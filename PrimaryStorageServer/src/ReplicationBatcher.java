@@ -0,0 +1,143 @@
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+public class ReplicationBatcher {
+
+    private static final long WINDOW_MILLIS = Long.getLong("replication.batch.windowMs", 5L);
+    private static final int MAX_BATCH_SIZE = Integer.getInteger("replication.batch.maxSize", 128);
+    // Consistency Level 이 없는 요청의 기본값, 0 이하이면 모든 Local Storage 의 응답을 기다림
+    private static final int REPLICATION_ACKS = Integer.getInteger("replication.acks", 0);
+
+    private final Collection<LocalStorageReplica> replicas;
+    private final long epoch;
+    private final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor();
+    private List<PendingOperation> pendingOperations = new ArrayList<>();
+    private boolean isFlushScheduled = false;
+
+    private record PendingOperation(ReplicationOperation operation, ConsistencyLevel consistencyLevel, CompletableFuture<Void> ack) { }
+
+    public ReplicationBatcher(Collection<LocalStorageReplica> replicas, long epoch) {
+        this.replicas = replicas;
+        this.epoch = epoch;
+    }
+
+    public synchronized CompletableFuture<Void> submit(ReplicationOperation operation, ConsistencyLevel consistencyLevel) {
+        CompletableFuture<Void> ack = new CompletableFuture<>();
+        pendingOperations.add(new PendingOperation(operation, consistencyLevel, ack));
+        if (pendingOperations.size() >= MAX_BATCH_SIZE || WINDOW_MILLIS <= 0) {
+            flush();
+        } else if (!isFlushScheduled) {
+            isFlushScheduled = true;
+            flushScheduler.schedule(this::flush, WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return ack;
+    }
+
+    // Bulk 요청의 Operation 은 기다리던 Operation 과 함께 바로 하나의 Batch 로 보내고, 모든 Operation 이 완료되면 끝나는 ack 를 반환
+    public synchronized CompletableFuture<Void> submitAll(List<ReplicationOperation> operations, ConsistencyLevel consistencyLevel) {
+        CompletableFuture<Void> ack = new CompletableFuture<>();
+        for (ReplicationOperation operation : operations) {
+            pendingOperations.add(new PendingOperation(operation, consistencyLevel, ack));
+        }
+        flush();
+        return ack;
+    }
+
+    // Batch 를 꺼내고 Replica Queue 에 넣는 작업을 한 번에 처리해서 Batch 간 순서를 유지
+    private synchronized void flush() {
+        isFlushScheduled = false;
+        if (pendingOperations.isEmpty()) {
+            return;
+        }
+        List<PendingOperation> batch = pendingOperations;
+        pendingOperations = new ArrayList<>();
+
+        List<ReplicationOperation> operations = new ArrayList<>(batch.size());
+        for (PendingOperation pendingOperation : batch) {
+            operations.add(pendingOperation.operation());
+        }
+        ReplicationBatch replicationBatch = new ReplicationBatch(epoch, operations);
+        // Circuit 이 열린 Replica 는 보내지 않지만, 지정한 Consistency Level 의 필요 응답 수는 등록된 전체 Replica 기준으로 계산
+        List<LocalStorageReplica> targets = new ArrayList<>();
+        int replicaCount = 0;
+        for (LocalStorageReplica replica : replicas) {
+            replicaCount++;
+            if (replica.acquire() != LocalStorageReplica.State.OPEN) {
+                targets.add(replica);
+            }
+        }
+        int[] requiredAcks = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            requiredAcks[i] = getRequiredAcks(batch.get(i).consistencyLevel(), replicaCount, targets.size());
+        }
+        // [성공한 응답 수, 실패한 응답 수]
+        int[] acks = new int[2];
+        completeAcknowledged(batch, requiredAcks, 0, targets.size());
+        for (LocalStorageReplica replica : targets) {
+            sendBatch(replica, replicationBatch, batch.size()).whenComplete((ignored, e) -> {
+                synchronized (acks) {
+                    acks[e == null ? 0 : 1]++;
+                    completeAcknowledged(batch, requiredAcks, acks[0], targets.size() - acks[1]);
+                }
+            });
+        }
+    }
+
+    private CompletableFuture<String> sendBatch(LocalStorageReplica replica, ReplicationBatch replicationBatch, int operationCount) {
+        int port = replica.getPort();
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        System.out.println("["+timestamp+"] " +
+                "[PRIMARY_SERVER] "+"[ Port : "+port+", Protocol : "+(replica.isBinaryProtocol() ? "binary" : "http")
+                +", Operations : "+operationCount+" ]"+" [Tell backups to update]");
+        // 전송에 성공해도 Batch 를 적용하지 못한 Replica 는 Consistency Level 의 응답 수에 포함하지 않음
+        return replica.send(replicationBatch).thenApply(response -> {
+            if (!replicationBatch.isAppliedBy(response)) {
+                throw new IllegalStateException("Sequence " + replicationBatch.getLastSequence() + " not applied - " + response);
+            }
+            return response;
+        }).whenComplete((response, e) -> {
+            if (e != null) {
+                LoggingUtil.logAsync(Level.SEVERE,"Backup failed on port " + port + " - " + e);
+            } else {
+                LoggingUtil.logAsync(Level.INFO,"Server Awk Message - "+response);
+            }
+        });
+    }
+
+    // 요청한 Consistency Level 만큼 성공한 Operation 부터 완료, 나머지 Replica 는 Background 에서 계속 진행
+    // 실패한 Replica 때문에 더 이상 만족할 수 없으면 지정한 Level 은 실패로 완료하고, 기본값은 응답한 Replica 까지만 기다림
+    private void completeAcknowledged(List<PendingOperation> batch, int[] requiredAcks, int successAcks, int reachableAcks) {
+        for (int i = 0; i < batch.size(); i++) {
+            PendingOperation pendingOperation = batch.get(i);
+            if (requiredAcks[i] <= successAcks) {
+                pendingOperation.ack().complete(null);
+            } else if (requiredAcks[i] > reachableAcks) {
+                if (pendingOperation.consistencyLevel() == null) {
+                    pendingOperation.ack().complete(null);
+                } else {
+                    pendingOperation.ack().completeExceptionally(new IllegalStateException("Consistency level "
+                            + pendingOperation.consistencyLevel() + " not met - " + successAcks + " of "
+                            + requiredAcks[i] + " required Local Storage acknowledged"));
+                }
+            }
+        }
+    }
+
+    private int getRequiredAcks(ConsistencyLevel consistencyLevel, int replicaCount, int targetCount) {
+        if (consistencyLevel != null) {
+            return consistencyLevel.getRequiredAcks(replicaCount);
+        }
+        return REPLICATION_ACKS <= 0 ? targetCount : Math.min(REPLICATION_ACKS, targetCount);
+    }
+
+    public void close() {
+        flushScheduler.shutdown();
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class ReplicationLog {
+
+    private static final int CAPACITY = Integer.getInteger("replication.log.capacity", 10000);
+
+    // Primary 가 재시작되면 Sequence 가 다시 시작되므로 Replica 는 epoch 가 다르면 전체 Snapshot 을 받음
+    private final long epoch = System.currentTimeMillis();
+    private final ReplicationOperation[] entries = new ReplicationOperation[CAPACITY];
+    private long lastSequence = 0;
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    // Data Storage 의 Commit Version 을 Sequence 로 받으므로 빠짐없이 순서대로 들어와야 함
+    public synchronized ReplicationOperation append(long sequence, String method, long id, String title, String body) {
+        if (sequence != lastSequence + 1) {
+            throw new IllegalStateException("Replication sequence " + sequence + " does not follow " + lastSequence);
+        }
+        lastSequence = sequence;
+        ReplicationOperation operation = new ReplicationOperation(lastSequence, method, id, title, body);
+        entries[(int) ((lastSequence - 1) % CAPACITY)] = operation;
+        return operation;
+    }
+
+    // sequence 이후의 Operation 이 이미 잘려나간 경우 empty 를 반환
+    public synchronized Optional<List<ReplicationOperation>> findSince(long sequence) {
+        long firstSequence = Math.max(1, lastSequence - CAPACITY + 1);
+        if (sequence < firstSequence - 1 || sequence > lastSequence) {
+            return Optional.empty();
+        }
+        List<ReplicationOperation> operations = new ArrayList<>((int) (lastSequence - sequence));
+        for (long next = sequence + 1; next <= lastSequence; next++) {
+            operations.add(entries[(int) ((next - 1) % CAPACITY)]);
+        }
+        return Optional.of(operations);
+    }
+}
@@ -0,0 +1,18 @@
+import com.google.gson.JsonObject;
+
+public record ReplicationOperation(long sequence, String method, long id, String title, String body) {
+
+    public JsonObject toJson() {
+        JsonObject operation = new JsonObject();
+        operation.addProperty("seq", sequence);
+        operation.addProperty("method", method);
+        operation.addProperty("id", id);
+        if (title != null) {
+            operation.addProperty("title", title);
+        }
+        if (body != null) {
+            operation.addProperty("body", body);
+        }
+        return operation;
+    }
+}
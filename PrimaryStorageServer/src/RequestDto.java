@@ -1 +1 @@
-public record RequestDto(String method, String url, String body) { }
\ No newline at end of file
+public record RequestDto(String method, String url, String body, ConsistencyLevel consistencyLevel) { }
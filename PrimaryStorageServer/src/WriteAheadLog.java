@@ -0,0 +1,182 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+// Record 형식 : [payload length][crc32][type][id][title][body]
+public class WriteAheadLog {
+
+    public static final byte SAVE = 1;
+    public static final byte PUT = 2;
+    public static final byte PATCH = 3;
+    public static final byte DELETE = 4;
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    public record LogRecord(byte type, long id, String title, String body) { }
+
+    private final FileChannel channel;
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncCondition = syncLock.newCondition();
+    private volatile long writtenPosition;
+    private long durablePosition;
+    private boolean isSyncing = false;
+
+    public WriteAheadLog(Path logPath) throws IOException {
+        if (logPath.getParent() != null) {
+            Files.createDirectories(logPath.getParent());
+        }
+        channel = FileChannel.open(logPath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    public synchronized void replay(Consumer<LogRecord> consumer) throws IOException {
+        long validPosition = 0;
+        long recordCount = 0;
+        channel.position(0);
+        DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        try {
+            while (true) {
+                int payloadLength = input.readInt();
+                int checksum = input.readInt();
+                if (payloadLength <= 0 || payloadLength > channel.size()) {
+                    break;
+                }
+                byte[] payload = new byte[payloadLength];
+                input.readFully(payload);
+                CRC32 crc32 = new CRC32();
+                crc32.update(payload);
+                if ((int) crc32.getValue() != checksum) {
+                    break;
+                }
+                consumer.accept(decode(ByteBuffer.wrap(payload)));
+                validPosition += HEADER_SIZE + payloadLength;
+                recordCount++;
+            }
+        } catch (EOFException ignored) {
+            // 마지막 Record 가 쓰다가 끊긴 경우
+        }
+        if (validPosition < channel.size()) {
+            LoggingUtil.logAsync(Level.WARNING, "Truncate torn write ahead log tail at " + validPosition);
+            channel.truncate(validPosition);
+        }
+        channel.position(validPosition);
+        writtenPosition = validPosition;
+        durablePosition = validPosition;
+        LoggingUtil.logAsync(Level.INFO, "Replayed " + recordCount + " write ahead log records");
+    }
+
+    public synchronized long append(LogRecord logRecord) throws IOException {
+        ByteBuffer buffer = encode(logRecord);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        writtenPosition = channel.position();
+        return writtenPosition;
+    }
+
+    // Group Commit : fsync 중에 들어온 Writer 들은 다음 fsync 한 번으로 함께 처리
+    public void sync(long position) throws IOException {
+        syncLock.lock();
+        try {
+            while (durablePosition < position) {
+                if (isSyncing) {
+                    syncCondition.awaitUninterruptibly();
+                    continue;
+                }
+                isSyncing = true;
+                long targetPosition = writtenPosition;
+                syncLock.unlock();
+                try {
+                    channel.force(false);
+                } finally {
+                    syncLock.lock();
+                    isSyncing = false;
+                    syncCondition.signalAll();
+                }
+                durablePosition = Math.max(durablePosition, targetPosition);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    // 진행 중인 fsync 가 끝난 후 남은 Record 를 모두 기록하고 닫음
+    public void close() throws IOException {
+        syncLock.lock();
+        try {
+            while (isSyncing) {
+                syncCondition.awaitUninterruptibly();
+            }
+            if (channel.isOpen()) {
+                channel.force(true);
+                channel.close();
+            }
+            durablePosition = writtenPosition;
+            syncCondition.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private ByteBuffer encode(LogRecord logRecord) {
+        byte[] title = logRecord.title() != null ? logRecord.title().getBytes(StandardCharsets.UTF_8) : null;
+        byte[] body = logRecord.body() != null ? logRecord.body().getBytes(StandardCharsets.UTF_8) : null;
+        int payloadLength = Byte.BYTES + Long.BYTES
+                + Integer.BYTES + (title != null ? title.length : 0)
+                + Integer.BYTES + (body != null ? body.length : 0);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payloadLength);
+        buffer.position(HEADER_SIZE);
+        buffer.put(logRecord.type());
+        buffer.putLong(logRecord.id());
+        putBytes(buffer, title);
+        putBytes(buffer, body);
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(buffer.array(), HEADER_SIZE, payloadLength);
+        buffer.putInt(0, payloadLength);
+        buffer.putInt(Integer.BYTES, (int) crc32.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    private LogRecord decode(ByteBuffer payload) {
+        byte type = payload.get();
+        long id = payload.getLong();
+        String title = getString(payload);
+        String body = getString(payload);
+        return new LogRecord(type, id, title, body);
+    }
+
+    private void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -3,6 +3,7 @@ import com.google.gson.JsonParser;
 import util.LoggingUtil;
 import util.RequestDto;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
@@ -10,6 +11,7 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.util.Iterator;
 import java.util.concurrent.TimeUnit;
@@ -17,6 +19,8 @@ import java.util.logging.Level;
 
 public class TCPServer {
 
+    private static final String INVALID_REQUEST_MESSAGE = "{\"msg\":\"Not Valid Request\"}";
+
     private final String applicationName;
     private final int serverPort;
     private final int storagePort;
@@ -62,7 +66,13 @@ public class TCPServer {
                         handleConnection();
                     }
                     if (key.isReadable()) {
-                        handleRequest((SocketChannel) key.channel());
+                        // 잘못된 요청은 해당 Connection 만 닫고 다른 Client 의 요청은 계속 처리
+                        try {
+                            handleRequest(key);
+                        } catch (RuntimeException e) {
+                            LoggingUtil.logAsync(Level.WARNING, "Invalid tcp request - " + e.getMessage());
+                            key.channel().close();
+                        }
                     }
                 }
             }
@@ -91,10 +101,13 @@ public class TCPServer {
     private void handleConnection() throws IOException {
         SocketChannel clientChannel = tcpChannel.accept();
         clientChannel.configureBlocking(false);
-        clientChannel.register(selector, SelectionKey.OP_READ);
+        clientChannel.register(selector, SelectionKey.OP_READ, new ByteArrayOutputStream());
     }
 
-    private synchronized void handleRequest(SocketChannel clientChannel) throws IOException {
+    // 1024 byte 보다 긴 Bulk 요청도 받을 수 있도록 Json 이 끝날 때까지 Connection 별로 모아서 처리
+    private synchronized void handleRequest(SelectionKey key) throws IOException {
+        SocketChannel clientChannel = (SocketChannel) key.channel();
+        ByteArrayOutputStream requestBytes = (ByteArrayOutputStream) key.attachment();
         ByteBuffer buffer = ByteBuffer.allocate(1024);
         int bytesRead;
         try {
@@ -113,9 +126,22 @@ public class TCPServer {
             LoggingUtil.logAsync(Level.INFO,"Client connection closed.");
             return;
         }
-        buffer.flip();
-        String request = new String(buffer.array(), 0, bytesRead);
-        RequestDto requestDto = parsingTcpRequest(request);
+        requestBytes.write(buffer.array(), 0, bytesRead);
+        if (!isJsonComplete(requestBytes.toByteArray())) {
+            return;
+        }
+        String request = requestBytes.toString(StandardCharsets.UTF_8);
+        requestBytes.reset();
+        RequestDto requestDto;
+        try {
+            requestDto = parsingTcpRequest(request);
+        } catch (RuntimeException e) {
+            ByteBuffer errorBuffer = ByteBuffer.wrap(INVALID_REQUEST_MESSAGE.getBytes(StandardCharsets.UTF_8));
+            while (errorBuffer.hasRemaining()) {
+                clientChannel.write(errorBuffer);
+            }
+            return;
+        }
         Timestamp requestTimeStamp = new Timestamp(System.currentTimeMillis());
         System.out.println("["+requestTimeStamp+"] " +
                 "["+applicationName+"] " + "[ " +requestDto.method() + " ] " +
@@ -127,20 +153,18 @@ public class TCPServer {
                 "["+applicationName+"] " + "[ " +requestDto.method() + " ] " +
                 "[ " +requestDto.url() + " ] " +
                 "[ Response Body : " + response + " ] ");
-        buffer.clear();
-        buffer.put(response.getBytes());
-        buffer.flip();
-        while (buffer.hasRemaining()) {
-            clientChannel.write(buffer);
+        ByteBuffer responseBuffer = ByteBuffer.wrap(response.getBytes(StandardCharsets.UTF_8));
+        while (responseBuffer.hasRemaining()) {
+            clientChannel.write(responseBuffer);
         }
     }
     private RequestDto parsingTcpRequest(String request){
         JsonObject jsonObject = JsonParser.parseString(request).getAsJsonObject();
         String method = jsonObject.get("method").getAsString();
         String url = jsonObject.get("path").getAsString();
+        // Bulk 요청의 body 는 Json 배열
         if (jsonObject.has("body") && !jsonObject.get("body").isJsonNull()) {
-            JsonObject jsonBody = jsonObject.get("body").getAsJsonObject();
-            return new RequestDto(method,url,jsonBody.toString());
+            return new RequestDto(method,url,jsonObject.get("body").toString());
         }else{
             return new RequestDto(method,url,null);
         }
@@ -150,16 +174,56 @@ public class TCPServer {
         SocketChannel socketChannel = SocketChannel.open();
         socketChannel.connect(new InetSocketAddress("127.0.0.1",storagePort));
         socketChannel.configureBlocking(true);
-        ByteBuffer responseBuffer = ByteBuffer.wrap(clientRequest.getBytes());
-        socketChannel.write(responseBuffer);
+        ByteBuffer responseBuffer = ByteBuffer.wrap(clientRequest.getBytes(StandardCharsets.UTF_8));
+        while (responseBuffer.hasRemaining()) {
+            socketChannel.write(responseBuffer);
+        }
 
+        // Bulk 결과처럼 1024 byte 보다 긴 응답은 Json 이 끝날 때까지 이어서 읽음
+        ByteArrayOutputStream responseBytes = new ByteArrayOutputStream();
         ByteBuffer buffer = ByteBuffer.allocate(1024);
-        int bytesRead = socketChannel.read(buffer);
-        buffer.flip();
-        String response = new String(buffer.array(), 0, bytesRead);
-        buffer.clear();
+        while (!isJsonComplete(responseBytes.toByteArray())) {
+            int bytesRead = socketChannel.read(buffer);
+            if (bytesRead == -1) {
+                break;
+            }
+            responseBytes.write(buffer.array(), 0, bytesRead);
+            buffer.clear();
+        }
         socketChannel.close();
-        return response;
+        return responseBytes.toString(StandardCharsets.UTF_8);
+    }
+    // 문자열 밖의 괄호 깊이가 0 으로 돌아오면 끝, 객체나 배열로 시작하지 않으면 받은 내용 그대로 처리
+    private static boolean isJsonComplete(byte[] bytes) {
+        int start = 0;
+        while (start < bytes.length && Character.isWhitespace(bytes[start])) {
+            start++;
+        }
+        if (start == bytes.length) {
+            return false;
+        }
+        if (bytes[start] != '{' && bytes[start] != '[') {
+            return true;
+        }
+        int depth = 0;
+        boolean isInString = false;
+        for (int i = start; i < bytes.length; i++) {
+            byte current = bytes[i];
+            if (isInString) {
+                if (current == '\\') {
+                    i++;
+                } else if (current == '"') {
+                    isInString = false;
+                }
+            } else if (current == '"') {
+                isInString = true;
+            } else if (current == '{' || current == '[') {
+                depth++;
+            } else if ((current == '}' || current == ']') && --depth == 0) {
+                return true;
+            }
+        }
+        return false;
     }
     public void stopLocalStorage() {
         if (localStorageProcess != null && localStorageProcess.isAlive()) {
@@ -8,6 +8,7 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.util.Iterator;
 import java.util.concurrent.TimeUnit;
@@ -15,6 +16,9 @@ import java.util.logging.Level;
 
 public class UDPServer {
 
+    private static final int MAX_DATAGRAM_SIZE = 65507;
+    private static final String INVALID_REQUEST_MESSAGE = "{\"msg\":\"Not Valid Request\"}";
+
     private final String applicationName;
     private final int serverPort;
     private final int storagePort;
@@ -57,7 +61,12 @@ public class UDPServer {
                     SelectionKey key = keyIterator.next();
                     keyIterator.remove();
                     if (key.isReadable()) {
-                        handleRequest((DatagramChannel) key.channel());
+                        // 잘못된 요청은 무시하고 다른 Client 의 요청은 계속 처리
+                        try {
+                            handleRequest((DatagramChannel) key.channel());
+                        } catch (RuntimeException e) {
+                            LoggingUtil.logAsync(Level.WARNING, "Invalid udp request - " + e.getMessage());
+                        }
                     }
                 }
             }
@@ -87,17 +96,24 @@ public class UDPServer {
 
     private synchronized void handleRequest(DatagramChannel datagramChannel) throws IOException {
 
-        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        // Bulk 요청은 1024 byte 보다 길 수 있으므로 Datagram 최대 크기까지 받음
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
         SocketAddress address = datagramChannel.receive(buffer);
 
         buffer.flip();
-        String request = new String(buffer.array(), 0, buffer.limit());
+        String request = new String(buffer.array(), 0, buffer.limit(), StandardCharsets.UTF_8);
         if (request.isEmpty()) {
             datagramChannel.close();
             LoggingUtil.logAsync(Level.INFO,"Client connection closed.");
             return;
         }
-        RequestDto requestDto = parsingUdpRequest(request);
+        RequestDto requestDto;
+        try {
+            requestDto = parsingUdpRequest(request);
+        } catch (RuntimeException e) {
+            udpChannel.send(ByteBuffer.wrap(INVALID_REQUEST_MESSAGE.getBytes(StandardCharsets.UTF_8)),address);
+            return;
+        }
         Timestamp requestTimeStamp = new Timestamp(System.currentTimeMillis());
         System.out.println("["+requestTimeStamp+"] " +
                 "["+applicationName+"] " + "[ " +requestDto.method() + " ] " +
@@ -109,11 +125,10 @@ public class UDPServer {
                 "["+applicationName+"] " + "[ " +requestDto.method() + " ] " +
                 "[ " +requestDto.url() + " ] " +
                 "[ Response Body : " + response + " ] ");
-        buffer.clear();
-        buffer.put(response.getBytes());
-        buffer.flip();
-        while (buffer.hasRemaining()) {
-            udpChannel.send(buffer,address);
+        // Local Storage 가 Datagram 하나에 들어가도록 줄인 응답을 그대로 전달
+        ByteBuffer responseBuffer = ByteBuffer.wrap(response.getBytes(StandardCharsets.UTF_8));
+        while (responseBuffer.hasRemaining()) {
+            udpChannel.send(responseBuffer,address);
         }
     }
 
@@ -121,9 +136,9 @@ public class UDPServer {
         JsonObject jsonObject = JsonParser.parseString(request).getAsJsonObject();
         String method = jsonObject.get("method").getAsString();
         String url = jsonObject.get("path").getAsString();
+        // Bulk 요청의 body 는 Json 배열
         if (jsonObject.has("body") && !jsonObject.get("body").isJsonNull()) {
-            JsonObject jsonBody = jsonObject.get("body").getAsJsonObject();
-            return new RequestDto(method,url,jsonBody.toString());
+            return new RequestDto(method,url,jsonObject.get("body").toString());
         }else{
             return new RequestDto(method,url,null);
         }
@@ -132,7 +147,7 @@ public class UDPServer {
 
         DatagramChannel udpChannel = DatagramChannel.open();
         InetSocketAddress serverAddress = new InetSocketAddress("127.0.0.1",storagePort);
-        byte[] sendData = clientRequest.getBytes();
+        byte[] sendData = clientRequest.getBytes(StandardCharsets.UTF_8);
         ByteBuffer sendBuffer = ByteBuffer.wrap(sendData);
         udpChannel.send(sendBuffer,serverAddress);
 
@@ -140,7 +155,7 @@ public class UDPServer {
         udpChannel.configureBlocking(true);
         udpChannel.receive(receiveBuffer);
         receiveBuffer.flip();
-        String response = new String(receiveBuffer.array(), 0, receiveBuffer.limit());
+        String response = new String(receiveBuffer.array(), 0, receiveBuffer.limit(), StandardCharsets.UTF_8);
         receiveBuffer.clear();
         udpChannel.close();
         return response;